@@ -0,0 +1,172 @@
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The common part of the compressed sparse row (CSR) graphs: read-only undirected graphs whose
+ * vertices have dense int ids, and whose edges out of vertex id are the edge indexes
+ * edgeStart(id) .. edgeEnd(id)-1, with targets edgeTarget(e) sorted within each vertex.
+ *
+ * Everything the Graph interface asks for is worked out here from those few accessors, plus
+ * vertexAt/indexOf and edgeLabel; subclasses only decide where the arrays live (on the heap,
+ * in an off-heap buffer, ...) and how vertices and labels are stored.
+ *
+ * Since the graph is undirected, in-neighbors and out-neighbors are the same, and each
+ * undirected edge is stored as a pair of directed edges (as in AdjacencyMapGraph).
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public abstract class AbstractCSRGraph<V,E> implements IndexedGraph<V,E> {
+    /**
+     * The label of edge e, which goes out of the vertex with id 'source'.
+     */
+    protected abstract E edgeLabel(int source, int e);
+
+    public Iterable<V> vertices() {
+        return new AbstractList<V>() {
+            public V get(int id) {
+                Objects.checkIndex(id, numVertices());
+                return vertexAt(id);
+            }
+
+            public int size() {
+                return numVertices();
+            }
+        };
+    }
+
+    public boolean hasVertex(V v) {
+        return indexOf(v) >= 0;
+    }
+
+    public int outDegree(V v) {
+        int id = idOf(v);
+        return edgeEnd(id) - edgeStart(id);
+    }
+
+    public int inDegree(V v) {
+        return outDegree(v);
+    }
+
+    public Iterable<V> outNeighbors(V v) {
+        int id = idOf(v);
+        int start = edgeStart(id), end = edgeEnd(id);
+        return new AbstractList<V>() {
+            public V get(int i) {
+                Objects.checkIndex(i, end - start);
+                return vertexAt(edgeTarget(start + i));
+            }
+
+            public int size() {
+                return end - start;
+            }
+        };
+    }
+
+    public Iterable<V> inNeighbors(V v) {
+        return outNeighbors(v);
+    }
+
+    public boolean hasEdge(V u, V v) {
+        return edgeIndex(idOf(u), v) >= 0;
+    }
+
+    public E getLabel(V u, V v) {
+        int from = idOf(u);
+        int e = edgeIndex(from, v);
+        return e >= 0 ? edgeLabel(from, e) : null;
+    }
+
+    public void forEachOutNeighbor(V v, Consumer<? super V> action) {
+        int id = idOf(v);
+        for (int e = edgeStart(id), end = edgeEnd(id); e < end; e++) {
+            action.accept(vertexAt(edgeTarget(e)));
+        }
+    }
+
+    public void forEachInNeighbor(V v, Consumer<? super V> action) {
+        forEachOutNeighbor(v, action);
+    }
+
+    public void forEachOutEdge(V v, BiConsumer<? super V, ? super E> action) {
+        int id = idOf(v);
+        for (int e = edgeStart(id), end = edgeEnd(id); e < end; e++) {
+            action.accept(vertexAt(edgeTarget(e)), edgeLabel(id, e));
+        }
+    }
+
+    public void insertVertex(V v) {
+        throw readOnly();
+    }
+
+    public void insertDirected(V u, V v, E e) {
+        throw readOnly();
+    }
+
+    public void insertUndirected(V u, V v, E e) {
+        throw readOnly();
+    }
+
+    public void removeVertex(V v) {
+        throw readOnly();
+    }
+
+    public void removeDirected(V u, V v) {
+        throw readOnly();
+    }
+
+    public void removeUndirected(V u, V v) {
+        throw readOnly();
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException(getClass().getSimpleName() + " is read-only");
+    }
+
+    /**
+     * The index of the edge from the vertex with id 'from' to v, or a negative number if there
+     * is no such edge. Binary searches the sorted edges of 'from'.
+     */
+    protected int edgeIndex(int from, V v) {
+        int to = indexOf(v);
+        if (to < 0) return -1;
+        int lo = edgeStart(from), hi = edgeEnd(from) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int target = edgeTarget(mid);
+            if (target < to) lo = mid + 1;
+            else if (target > to) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * The id of a vertex that must be in the graph.
+     */
+    protected int idOf(V v) {
+        int id = indexOf(v);
+        if (id < 0) {
+            throw new IllegalArgumentException(v + " is not a vertex of this graph");
+        }
+        return id;
+    }
+
+    /**
+     * Returns a string representation of the vertex and edge lists.
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Vertices: " + vertices() + "\nOut edges: {");
+        for (int i = 0; i < numVertices(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(vertexAt(i)).append("={");
+            for (int e = edgeStart(i); e < edgeEnd(i); e++) {
+                if (e > edgeStart(i)) sb.append(", ");
+                sb.append(vertexAt(edgeTarget(e))).append('=').append(edgeLabel(i, e));
+            }
+            sb.append('}');
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -1,5 +1,7 @@
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Adjancency Map implementation of the Graph interface
@@ -65,6 +67,19 @@ public class AdjacencyMapGraph<V,E> implements Graph<V,E> {
 		return out.get(u).get(v);
 	}
 
+	public void forEachOutNeighbor(V v, Consumer<? super V> action) {
+		out.get(v).keySet().forEach(action);
+	}
+
+	public void forEachInNeighbor(V v, Consumer<? super V> action) {
+		in.get(v).keySet().forEach(action);
+	}
+
+	public void forEachOutEdge(V v, BiConsumer<? super V, ? super E> action) {
+		// The map entries hold the labels, so no second lookup per edge
+		out.get(v).forEach(action);
+	}
+
 	public void insertVertex(V v) {
 		if (!out.keySet().contains(v)) {
 			out.put(v, new HashMap<V, E>());	// edges from v
@@ -0,0 +1,95 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BFSCache keeps recently computed BFS results, keyed by their source (e.g., a center actor),
+ * so that switching back to a recent source is a hash lookup instead of a full traversal.
+ * The cache is bounded by the total size of the results it holds, and evicts the least recently
+ * used results first. It also counts hits and misses.
+ *
+ * @param <K>	the type of keys
+ */
+public class BFSCache<K> {
+    /** Default budget: room for a few hundred BFS results over the full 9k-actor dataset */
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    private final long maxBytes;
+    private long bytes = 0;             // total sizeInBytes() of the cached results
+    private long hits = 0, misses = 0;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<K, BFSResult> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates an empty cache with the default size budget.
+     */
+    public BFSCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates an empty cache that holds at most maxBytes worth of results
+     * (though always at least the most recently added one).
+     */
+    public BFSCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The cached result for the key, or null if there is none.
+     * Counts as a hit or a miss, and marks the result as most recently used.
+     */
+    public BFSResult get(K key) {
+        BFSResult result = results.get(key);
+        if (result != null) hits++;
+        else misses++;
+        return result;
+    }
+
+    /**
+     * Caches the result for the key (replacing any previous one), then evicts least recently
+     * used results until the cache is within its size budget.
+     */
+    public void put(K key, BFSResult result) {
+        BFSResult old = results.put(key, result);
+        if (old != null) bytes -= old.sizeInBytes();
+        bytes += result.sizeInBytes();
+
+        Iterator<Map.Entry<K, BFSResult>> eldest = results.entrySet().iterator();
+        while (bytes > maxBytes && results.size() > 1) {
+            bytes -= eldest.next().getValue().sizeInBytes();
+            eldest.remove();
+        }
+    }
+
+    /** Removes all cached results (the hit and miss counts are kept) */
+    public void clear() {
+        results.clear();
+        bytes = 0;
+    }
+
+    /** How many results are cached */
+    public int size() {
+        return results.size();
+    }
+
+    /** Total approximate size in bytes of the cached results */
+    public long bytes() {
+        return bytes;
+    }
+
+    /** How many lookups found a cached result */
+    public long hits() {
+        return hits;
+    }
+
+    /** How many lookups found nothing */
+    public long misses() {
+        return misses;
+    }
+
+    public String toString() {
+        return "BFSCache: " + results.size() + " results, " + bytes + " bytes, "
+                + hits + " hits, " + misses + " misses";
+    }
+}
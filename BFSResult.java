@@ -0,0 +1,145 @@
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * BFSResult is a read-only copy of a BFS run over dense vertex ids: the source, the depth and
+ * parent of every vertex, and the reached vertices in visit order. Unlike a BFSWorkspace,
+ * which is overwritten by the next BFS on its thread, a result can be kept (e.g., cached)
+ * for as long as it is needed.
+ *
+ * It also keeps the statistics the BFS tallied as it went: how many vertices it reached at each
+ * depth and the sum of their depths, so that the average separation and the depth histogram
+ * need no further pass, plus the set of vertices it did not reach.
+ * Since the BFS visits the vertices depth by depth, the visit order is also the vertices
+ * grouped into one bucket per depth, so all the vertices in a range of depths form one slice
+ * of it (see startOfDistance).
+ *
+ * Vertex ids only mean something for one particular graph, so each result also records the
+ * version of the graph it was computed on; isFor(...) tells whether it can still be used.
+ */
+public class BFSResult {
+    private final int source;       // source of the BFS, or -1 if it had none
+    private final int graphVersion; // version of the graph the BFS ran on
+    private final int[] dist;       // id -> depth, or -1 if not reached
+    private final int[] parent;     // id -> parent id, or -1 for the source (only valid if reached)
+    private final int[] order;      // the reached vertices in visit order
+    private final int[] levelEnds;  // depth d is order[levelEnds[d-1]..levelEnds[d]) (from 0 for d = 0)
+    private final long totalDistance;   // sum of the depths of the reached vertices
+    private final BitSet unreached;     // the vertices not reached
+
+    /**
+     * Copies the outcome of the last BFS run in 'ws' on a graph with n vertices.
+     *
+     * @param ws            the workspace filled in by the BFS
+     * @param n             the number of vertices of the graph
+     * @param graphVersion  the version of the graph, as defined by whoever owns it
+     */
+    public BFSResult(BFSWorkspace ws, int n, int graphVersion) {
+        source = ws.source;
+        this.graphVersion = graphVersion;
+        dist = Arrays.copyOf(ws.dist, n);
+        parent = Arrays.copyOf(ws.parent, n);
+        order = Arrays.copyOf(ws.queue, ws.size);
+        levelEnds = Arrays.copyOf(ws.levelEnds, ws.levels);
+        totalDistance = ws.totalDistance;
+        // The BFS marked the reached vertices as it went; the rest are the unreached ones
+        unreached = BitSet.valueOf(LongBuffer.wrap(ws.visited, 0, (n + 63) >>> 6));
+        unreached.flip(0, n);
+    }
+
+    /** The source of the BFS, or -1 if there was none */
+    public int source() {
+        return source;
+    }
+
+    /** The version of the graph the BFS ran on */
+    public int graphVersion() {
+        return graphVersion;
+    }
+
+    /**
+     * Whether this is the BFS from the given source on the given version of the graph,
+     * i.e., whether it can be used in place of running that BFS again.
+     */
+    public boolean isFor(int source, int graphVersion) {
+        return this.source == source && this.graphVersion == graphVersion;
+    }
+
+    /** How many vertices (including the source) the BFS reached */
+    public int size() {
+        return order.length;
+    }
+
+    /** The i-th vertex reached by the BFS, in visit order */
+    public int reachedAt(int i) {
+        return order[i];
+    }
+
+    /** Whether the vertex with the given id was reached by the BFS */
+    public boolean reached(int id) {
+        return id >= 0 && id < dist.length && dist[id] >= 0;
+    }
+
+    /** BFS depth of the vertex, or -1 if it was not reached */
+    public int distance(int id) {
+        return dist[id];
+    }
+
+    /** The vertex the given vertex was discovered from, or -1 for the source */
+    public int parent(int id) {
+        return parent[id];
+    }
+
+    /** The greatest depth the BFS reached, or -1 if it reached nothing */
+    public int maxDistance() {
+        return levelEnds.length - 1;
+    }
+
+    /** How many vertices the BFS reached at the given depth */
+    public int countAtDistance(int d) {
+        if (d < 0 || d >= levelEnds.length) return 0;
+        return levelEnds[d] - (d == 0 ? 0 : levelEnds[d - 1]);
+    }
+
+    /**
+     * Where the vertices at depth d start in the visit order, i.e., the index i of the first of
+     * them in reachedAt(i). The vertices at depths low..high are those at indexes
+     * startOfDistance(low) up to (not including) startOfDistance(high + 1).
+     * Depths below 0 give 0, and depths beyond the deepest give size().
+     */
+    public int startOfDistance(int d) {
+        if (d <= 0) return 0;
+        return d > levelEnds.length ? order.length : levelEnds[d - 1];
+    }
+
+    /** The sum of the distances from the source to all reached vertices */
+    public long totalSeparation() {
+        return totalDistance;
+    }
+
+    /**
+     * The average distance from the source to all other reached vertices,
+     * or 0.0 if no other vertices were reached.
+     */
+    public double averageSeparation() {
+        return GraphLib.averageSeparation(totalDistance, order.length);
+    }
+
+    /** How many vertices the BFS did not reach */
+    public int numUnreached() {
+        return dist.length - order.length;
+    }
+
+    /** The ids of the vertices the BFS did not reach (a copy, which the caller may modify) */
+    public BitSet unreached() {
+        return (BitSet) unreached.clone();
+    }
+
+    /** Approximately how many bytes of heap this result occupies */
+    public long sizeInBytes() {
+        // four int arrays and the bitset's long array, each with a 16-byte header, plus the objects
+        return 4L * (dist.length + parent.length + order.length + levelEnds.length)
+                + 8L * ((dist.length + 63) / 64) + 5 * 16 + 32 + 24;
+    }
+}
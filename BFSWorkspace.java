@@ -0,0 +1,236 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BFSWorkspace holds the scratch arrays for a BFS over the dense vertex ids of an IndexedGraph:
+ *   - dist[id]   : BFS depth of the vertex, or -1 if it was not reached
+ *   - parent[id] : id of the vertex it was discovered from (-1 for the source)
+ *   - queue      : the FIFO queue; since every vertex is enqueued at most once, after the BFS
+ *                  queue[0..size) lists every reached vertex in visit (i.e., depth) order
+ *   - levelEnds  : where each depth ends in the queue, recorded by the BFS as it finishes each
+ *                  level; this gives the number of vertices at each depth and the sum of all
+ *                  depths without another pass over the reached vertices
+ *   - visited    : a bitset of the reached vertices (bit id of visited[id >>> 6]), set by the
+ *                  BFS as it reaches them, so the set of unreached vertices needs no pass either
+ *
+ * The arrays are only reallocated when the graph grows, and between runs only the entries of
+ * the vertices that were actually reached are cleared, so repeated BFS runs produce no garbage.
+ *
+ * For multi-source BFS (64 sources at a time) it also holds one long bitmask per vertex for
+ * each of: the sources that have seen it, the sources visiting it now, and those visiting it next.
+ *
+ * Direction-optimizing BFS also uses a bitset of the current frontier (bit id set: the vertex
+ * is in the frontier), rebuilt at each level where it is needed, and a list of the vertices
+ * not reached yet, built at the first bottom-up level and shrunk at each one after it. Parallel BFS also has an atomic
+ * bitset of the vertices reached so far, which threads claim vertices in with compare-and-set.
+ *
+ * For BFS over a bipartite graph, it also has marks for the vertices of the other kind
+ * (e.g., movies): an entry equal to the current epoch means marked, so bumping the epoch
+ * clears all marks at once. Multi-source BFS over a bipartite graph also keeps the seen and
+ * visit bitmasks for the vertices of the other kind.
+ * A workspace is not thread-safe; GraphLib keeps one per thread.
+ */
+public class BFSWorkspace {
+    int[] dist = new int[0];
+    int[] parent = new int[0];
+    int[] queue = new int[0];
+    int size;           // number of vertices reached by the last BFS
+    int source = -1;    // source of the last BFS, or -1 if none
+    int[] levelEnds = new int[0];   // depth d is queue[levelEnds[d-1]..levelEnds[d]) (from 0 for d = 0)
+    int levels;                     // how many depths the last BFS reached
+    long totalDistance;             // sum of the depths of all vertices reached by the last BFS
+    long[] visited = new long[0];   // bit id of visited[id >>> 6] set: id was reached by the last BFS
+
+    long[] seen = new long[0];        // bit i set: source i has reached the vertex
+    long[] visit = new long[0];       // bit i set: the vertex is in source i's current frontier
+    long[] visitNext = new long[0];   // bit i set: the vertex is in source i's next frontier
+    long[] otherSeen = new long[0];   // the same as seen, for the vertices of the other kind (bipartite)
+    long[] otherVisit = new long[0];  // the same as visit, for the vertices of the other kind (bipartite)
+
+    long[] frontier = new long[0];    // bit id of frontier[id >>> 6] set: id is in the frontier
+    int[] unreached = new int[0];     // unreached[0..unreachedCount): ids not reached yet, ascending
+    int unreachedCount = -1;          // -1 until the list is built for the current BFS
+    AtomicLongArray claimed = new AtomicLongArray(0);   // bit id set: id has been reached (parallel BFS)
+
+    int[] mark = new int[0];    // mark[x] == markEpoch: x is marked
+    int markEpoch = 0;
+
+    /**
+     * Prepares the workspace for a new BFS on a graph with n vertices.
+     * Afterwards every dist entry is -1 and the queue is empty.
+     */
+    void reset(int n, int source) {
+        if (dist.length < n) {
+            dist = new int[n];
+            parent = new int[n];
+            queue = new int[n];
+            visited = new long[(n + 63) >>> 6];
+            Arrays.fill(dist, -1);
+        } else {
+            // Only the vertices reached last time have a dist (and a visited word) to clear
+            for (int i = 0; i < size; i++) {
+                dist[queue[i]] = -1;
+                visited[queue[i] >>> 6] = 0L;
+            }
+        }
+        size = 0;
+        levels = 0;
+        totalDistance = 0;
+        unreachedCount = -1;
+        this.source = source;
+    }
+
+    /**
+     * Marks the vertex as reached in the visited bitset.
+     */
+    void visit(int id) {
+        visited[id >>> 6] |= 1L << id;
+    }
+
+    /**
+     * Records that the deepest level so far ends at queue[end]: the vertices queued since the
+     * previous level are all at the next depth.
+     */
+    void endLevel(int end) {
+        if (levels == levelEnds.length) {
+            levelEnds = Arrays.copyOf(levelEnds, Math.max(16, 2 * levels));
+        }
+        int start = levels == 0 ? 0 : levelEnds[levels - 1];
+        totalDistance += (long) levels * (end - start);
+        levelEnds[levels++] = end;
+    }
+
+    /**
+     * Prepares the bitmasks for a new multi-source BFS on a graph with n vertices.
+     * Afterwards every mask is 0.
+     */
+    void resetMultiSource(int n) {
+        if (seen.length < n) {
+            seen = new long[n];
+            visit = new long[n];
+            visitNext = new long[n];
+        } else {
+            Arrays.fill(seen, 0, n, 0L);
+            Arrays.fill(visit, 0, n, 0L);
+            Arrays.fill(visitNext, 0, n, 0L);
+        }
+    }
+
+    /**
+     * Prepares the other kind's bitmasks for a new multi-source BFS over a bipartite graph
+     * with 'count' vertices of that kind. Afterwards every mask is 0.
+     */
+    void resetMultiSourceOther(int count) {
+        if (otherSeen.length < count) {
+            otherSeen = new long[count];
+            otherVisit = new long[count];
+        } else {
+            Arrays.fill(otherSeen, 0, count, 0L);
+            Arrays.fill(otherVisit, 0, count, 0L);
+        }
+    }
+
+    /**
+     * Makes sure the frontier bitset can hold n vertices. Its contents are left as they are.
+     */
+    long[] frontierBits(int n) {
+        if (frontier.length < (n + 63) >>> 6) {
+            frontier = new long[(n + 63) >>> 6];
+        }
+        return frontier;
+    }
+
+    /**
+     * The list of unreached vertices of a graph with n vertices; the first call after a reset
+     * fills it with every vertex whose dist is still -1.
+     */
+    int[] unreachedIds(int n) {
+        if (unreachedCount < 0) {
+            if (unreached.length < n) {
+                unreached = new int[n];
+            }
+            int count = 0;
+            for (int id = 0; id < n; id++) {
+                if (dist[id] < 0) unreached[count++] = id;
+            }
+            unreachedCount = count;
+        }
+        return unreached;
+    }
+
+    /**
+     * Makes sure the claimed bitset can hold n vertices, and clears it.
+     */
+    AtomicLongArray claimedBits(int n) {
+        int words = (n + 63) >>> 6;
+        if (claimed.length() < words) {
+            claimed = new AtomicLongArray(words);
+        } else {
+            for (int i = 0; i < words; i++) claimed.set(i, 0L);
+        }
+        return claimed;
+    }
+
+    /**
+     * Clears all marks (making room for at least count of them) and returns the new epoch,
+     * i.e., the value that marked entries of mark[] must hold from now on.
+     */
+    int nextMarkEpoch(int count) {
+        if (mark.length < count) {
+            mark = new int[count];
+            markEpoch = 0;
+        }
+        if (markEpoch == Integer.MAX_VALUE) {
+            // Old stamps could collide with restarted epochs, so really clear them
+            Arrays.fill(mark, 0);
+            markEpoch = 0;
+        }
+        return ++markEpoch;
+    }
+
+    /** The source of the last BFS, or -1 if there was none */
+    public int source() {
+        return source;
+    }
+
+    /** How many vertices (including the source) the last BFS reached */
+    public int size() {
+        return size;
+    }
+
+    /** The i-th vertex reached by the last BFS, in visit order */
+    public int reachedAt(int i) {
+        return queue[i];
+    }
+
+    /** Whether the vertex with the given id was reached by the last BFS */
+    public boolean reached(int id) {
+        return id >= 0 && id < dist.length && dist[id] >= 0;
+    }
+
+    /** BFS depth of the vertex, or -1 if it was not reached */
+    public int distance(int id) {
+        return dist[id];
+    }
+
+    /** The greatest depth reached by the last BFS, or -1 if it reached nothing */
+    public int maxDistance() {
+        return levels - 1;
+    }
+
+    /** How many vertices the last BFS reached at the given depth */
+    public int countAtDistance(int d) {
+        if (d < 0 || d >= levels) return 0;
+        return levelEnds[d] - (d == 0 ? 0 : levelEnds[d - 1]);
+    }
+
+    /** The sum of the depths of all vertices reached by the last BFS */
+    public long totalDistance() {
+        return totalDistance;
+    }
+
+    /** The vertex the given vertex was discovered from, or -1 for the source */
+    public int parent(int id) {
+        return parent[id];
+    }
+}
@@ -14,8 +14,11 @@ import java.util.*;
  *   - u <name>: set <name> as the new center of the universe
  *   - d <low> <high>: list actors by degree (co-star count) between low and high
  *   - c <n>: compute the "best" centers by average separation
+ *   - k <n>: list the n actors with the most co-stars
  *   - i: show how many actors are connected and the average separation to the current center
+ *   - n: show how many actors are at each separation, and how many aren't connected
  *   - s <low> <high>: list actors by BFS separation range
+ *   - b: show how often the BFS cache had the center's BFS
  *   - q: quit the game
  *
  * @author Triumph Kia Teh, Dartmouth CS 10, Winter 2025
@@ -24,28 +27,46 @@ public class BaconGame {
 
     // The main graph of actor relationships: vertex is an actor (String),
     // and edges store movies (Set<String>) in which they co-starred.
-    protected Graph<String, Set<String>> graph;
+    protected IndexedGraph<String, Set<String>> graph;
 
-    // A BFS tree that represents shortest paths from the "center" (root) to other actors.
-    // The edges in this tree go from child -> parent.
-    protected Graph<String, Set<String>> bfsTree;
+    // In bipartite mode (see buildCastGraph), the actor-movie graph that replaces the co-star graph;
+    // graph is then empty and every query goes through castGraph. Null in the normal mode.
+    protected CastGraph castGraph;
+
+    // Bumped every time the graph is replaced, so that BFS results from an older graph are never used
+    protected int graphVersion = 0;
+
+    // The most recent BFS from the "center" (root): depth and parent of every reachable actor,
+    // by vertex id. Check it with currentBFS(), since the center or graph may have changed since.
+    protected BFSResult centerBFS;
+
+    // Recent BFS results by center actor, so switching back to a recent center needs no BFS
+    protected BFSCache<String> bfsCache = new BFSCache<>();
+
+    // Actors sorted by co-star count, for degree queries; built on first use, dropped when the graph changes
+    protected DegreeIndex degreeIndex;
 
     // The current "center of the universe" actor (e.g., "Kevin Bacon").
     protected String center;
 
-    // actorIdToName: maps actor IDs (like "100") to actor names (like "Kevin Bacon").
-    protected Map<String, String> actorIdToName = new HashMap<>();
-    // movieIdToTitle: maps movie IDs (like "50") to movie titles (like "Footloose (1984)").
-    protected Map<String, String> movieIdToTitle = new HashMap<>();
+    // actorIdToName: maps actor IDs (like 100) to actor names (like "Kevin Bacon").
+    protected Map<Integer, String> actorIdToName = new HashMap<>();
+    // movieIdToTitle: maps movie IDs (like 50) to movie titles (like "Footloose (1984)").
+    protected Map<Integer, String> movieIdToTitle = new HashMap<>();
     // movieIdToActorIds: maps a movie ID to the set of actor IDs in that movie.
-    protected Map<String, Set<String>> movieIdToActorIds = new HashMap<>();
+    protected Map<Integer, Set<Integer>> movieIdToActorIds = new HashMap<>();
+    // Interns the names and titles read from the data files, so that a repeated one is one String
+    protected PipeFileReader.Interner interner = new PipeFileReader.Interner();
+    // Set when the graph was loaded from a snapshot without the data files: the three maps above
+    // are then empty, so the build methods (which work from them) can't be used
+    protected boolean graphOnly;
 
     /**
-     * Default constructor initializes an empty graph (AdjacencyMapGraph).
-     * The BFS tree will be built later after we have chosen a center.
+     * Default constructor initializes an empty graph.
+     * The BFS will be run later after we have chosen a center.
      */
     public BaconGame() {
-        graph = new AdjacencyMapGraph<>();
+        graph = new CSRGraph<>(new UndirectedGraph<>());
     }
 
     /**
@@ -53,14 +74,8 @@ public class BaconGame {
      * Stores the mapping in actorIdToName.
      */
     public void loadActors(String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length == 2) {
-                    actorIdToName.put(parts[0], parts[1]);
-                }
-            }
+        try {
+            PipeFileReader.readIdNames(filename, interner, actorIdToName::put);
         } catch (IOException e) {
             System.out.println(e);
         }
@@ -71,14 +86,8 @@ public class BaconGame {
      * Stores the mapping in movieIdToTitle.
      */
     public void loadMovies(String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length == 2) {
-                    movieIdToTitle.put(parts[0], parts[1]);
-                }
-            }
+        try {
+            PipeFileReader.readIdNames(filename, interner, movieIdToTitle::put);
         } catch (IOException e) {
             System.out.println(e);
         }
@@ -89,19 +98,11 @@ public class BaconGame {
      * Fills the movieIdToActorIds map so we know which actor IDs belong to which movie.
      */
     public void loadMovieActors(String filename) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split("\\|");
-                if (parts.length == 2) {
-                    String movieID = parts[0];
-                    String actorID = parts[1];
-                    // Ensure we have a set for this movieID
-                    movieIdToActorIds.putIfAbsent(movieID, new HashSet<>());
-                    // Add the actorID to that movie's set
-                    movieIdToActorIds.get(movieID).add(actorID);
-                }
-            }
+        graphOnly = false;
+        try {
+            PipeFileReader.readIdPairs(filename, (movieID, actorID) ->
+                    // Add the actorID to that movie's set, creating the set if needed
+                    movieIdToActorIds.computeIfAbsent(movieID, id -> new HashSet<>()).add(actorID));
         } catch (IOException e) {
             System.out.println(e);
         }
@@ -109,217 +110,451 @@ public class BaconGame {
 
     /**
      * Builds the main graph by connecting every pair of actors who co-starred in each movie.
-     * For each movie, we find all actor IDs, convert them to names, and form undirected edges.
+     * For each movie, we find all actor IDs, convert them to names, and add an edge between
+     * every two of them in bulk to a GraphBuilder, which then builds the compact CSRGraph
+     * directly, merging the movies of actors who appear together more than once.
+     * This is the build that keeps the graph on the heap (BaconGameTest's "heap" mode).
      */
     public void buildGraph() {
+        requireDataFiles();
+        // Identical sets of shared movies are pooled and shared by all the edges that have them;
+        // a pair's movies are merged into the pooled set with all of them
+        LabelPool<String> labels = new LabelPool<>();
+        // Presize for every pair in every cast
+        int pairs = 0;
+        for (Set<Integer> cast : movieIdToActorIds.values()) {
+            pairs += cast.size() * (cast.size() - 1) / 2;
+        }
+        GraphBuilder<String, Set<String>> costars = new GraphBuilder<>(actorIdToName.size(), pairs, labels::union);
+
         // For each movie, connect all pairs of actors in that movie
-        for (String movieID : movieIdToActorIds.keySet()) {
-            Set<String> cast = movieIdToActorIds.get(movieID);
+        for (Integer movieID : movieIdToActorIds.keySet()) {
+            Set<Integer> cast = movieIdToActorIds.get(movieID);
             String movieTitle = movieIdToTitle.get(movieID);
 
-            // Convert the set of actorIDs to a List for easy pairwise iteration
-            List<String> actorList = new ArrayList<>(cast);
-            for (int i = 0; i < actorList.size(); i++) {
-                for (int j = i + 1; j < actorList.size(); j++) {
-                    // Convert actorID to actor name
-                    String a1 = actorIdToName.get(actorList.get(i));
-                    String a2 = actorIdToName.get(actorList.get(j));
-
-                    // Insert both actors as vertices if not already present
-                    graph.insertVertex(a1);
-                    graph.insertVertex(a2);
-
-                    // Retrieve existing movies on the a1-a2 edge, or create a new set
-                    Set<String> label12 = graph.getLabel(a1, a2);
-                    if (label12 == null) {
-                        label12 = new HashSet<>();
-                    }
-                    // Add this movie title to the set of shared movies
-                    label12.add(movieTitle);
-
-                    // Insert undirected edges for these two actors, including the updated set
-                    graph.insertUndirected(a1, a2, label12);
+            // Convert the actorIDs to actor names
+            List<String> names = new ArrayList<>(cast.size());
+            for (Integer actorID : cast) {
+                names.add(actorIdToName.get(actorID));
+            }
+            costars.addClique(names, labels.of(movieTitle));
+        }
+
+        // Loading is done, so build the read-only CSR form for all queries
+        setGraph(costars.build());
+    }
+
+    /**
+     * Builds the same graph as buildGraph(), but on all cores and straight into CSR form:
+     * the movies' casts are converted to dense actor ids, and CoStarGraphBuilder shards the
+     * movies across threads and sort-merges the resulting co-star pairs into the graph.
+     */
+    public void buildGraphParallel() {
+        requireDataFiles();
+        NameDictionary actors = castActorNames();
+        List<String> titles = new ArrayList<>();
+        int[][] casts = numberCasts(actors, titles);
+        setGraph(CoStarGraphBuilder.build(actors, casts, titles.toArray(new String[0]), true));
+    }
+
+    /**
+     * Builds the same graph as buildGraphParallel(), but without storing any edge labels:
+     * the graph keeps each actor's sorted list of movies instead, and the movies two actors
+     * share are found by intersecting their lists when a path is printed.
+     */
+    public void buildGraphLazyLabels() {
+        requireDataFiles();
+        NameDictionary actors = castActorNames();
+        List<String> titles = new ArrayList<>();
+        int[][] casts = numberCasts(actors, titles);
+        setGraph(CoStarGraphBuilder.buildUnlabeled(actors, casts, titles.toArray(new String[0]), true));
+    }
+
+    /**
+     * Switches to bipartite mode: instead of the co-star graph, with an edge for every pair of
+     * actors in every movie, builds a CastGraph that links each actor to their movies. Paths,
+     * separations, degrees and best centers are the same as with the co-star graph, but storage
+     * grows with the total cast size instead of its square.
+     */
+    public void buildCastGraph() {
+        requireDataFiles();
+        NameDictionary actors = castActorNames();
+        List<String> titles = new ArrayList<>();
+        int[][] casts = numberCasts(actors, titles);
+        setCastGraph(new CastGraph(actors, casts, titles.toArray(new String[0])));
+    }
+
+    /**
+     * Makes sure the data files' maps are there to build a graph from.
+     *
+     * @throws IllegalStateException if the graph was loaded from a snapshot without the data files
+     */
+    private void requireDataFiles() {
+        if (graphOnly) {
+            throw new IllegalStateException("The graph was loaded from a snapshot without the data files; "
+                    + "load them before building a graph");
+        }
+    }
+
+    /**
+     * The names of the actors in movies that have at least two actors (since actors only become
+     * vertices by co-starring with someone). The dictionary's ids are the actor ids used by the
+     * array-based graph builders: names are the vertices, so each name gets one id, in sorted order.
+     *
+     * @throws IllegalStateException if a movie lists an actor id that has no name
+     */
+    protected NameDictionary castActorNames() {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<Integer, Set<Integer>> movie : movieIdToActorIds.entrySet()) {
+            if (movie.getValue().size() < 2) continue;
+            for (Integer actorID : movie.getValue()) {
+                String name = actorIdToName.get(actorID);
+                if (name == null) {
+                    throw new IllegalStateException("Movie " + movie.getKey() + " lists actor " + actorID
+                            + ", who is not in the actors file");
                 }
+                names.add(name);
+            }
+        }
+        return new NameDictionary(names);
+    }
+
+    /**
+     * Numbers the movies that have at least two actors, and lists their casts by actor id,
+     * for the array-based graph builders.
+     *
+     * @param actors  the actor ids, from castActorNames()
+     * @param titles  receives the movie titles, in id order
+     * @return        the cast of each movie, as actor ids
+     */
+    protected int[][] numberCasts(NameDictionary actors, List<String> titles) {
+        List<int[]> casts = new ArrayList<>();
+        for (Map.Entry<Integer, Set<Integer>> movie : movieIdToActorIds.entrySet()) {
+            Set<Integer> cast = movie.getValue();
+            if (cast.size() < 2) continue;
+
+            int[] ids = new int[cast.size()];
+            int i = 0;
+            for (Integer actorID : cast) {
+                ids[i++] = actors.indexOf(actorIdToName.get(actorID));
             }
+            casts.add(ids);
+            titles.add(movieIdToTitle.get(movie.getKey()));
         }
+        return casts.toArray(new int[0][]);
+    }
+
+    /**
+     * Saves the co-star graph to a binary snapshot file, so that later runs can open it
+     * with loadSnapshot(...) instead of loading the text files and building the graph again.
+     * (Bipartite mode has no co-star graph to save.)
+     */
+    public void saveSnapshot(String filename) {
+        try {
+            GraphSnapshot.write(graph, filename);
+        } catch (IOException e) {
+            System.out.println(e);
+        }
+    }
+
+    /**
+     * Loads the co-star graph from a snapshot file written by saveSnapshot(...), provided the
+     * snapshot exists and is newer than all of the text files it was built from. The graph's
+     * edges stay in the memory-mapped file (see GraphSnapshot.map), so opening it copies none
+     * of them onto the heap.
+     *
+     * Only the graph is loaded: unless the data files were loaded as well, the build methods
+     * can't be used afterwards.
+     *
+     * @param filename  the snapshot file
+     * @param sources   the data files the snapshot was built from
+     * @return          whether the graph was loaded (if not, load the text files and build it)
+     */
+    public boolean loadSnapshot(String filename, String... sources) {
+        return loadSnapshot(filename, true, sources);
+    }
+
+    /**
+     * Like loadSnapshot(filename, sources), but can also copy the graph onto the heap: with
+     * offHeap cleared, the graph's edges are read from the snapshot file into arrays instead
+     * of being used straight from the memory-mapped file.
+     */
+    public boolean loadSnapshot(String filename, boolean offHeap, String... sources) {
+        try {
+            if (!GraphSnapshot.isUpToDate(filename, sources)) {
+                return false;
+            }
+            setGraph(offHeap ? GraphSnapshot.map(filename) : GraphSnapshot.read(filename));
+            // Only the graph is there to go on, unless the data files were loaded too
+            graphOnly = movieIdToActorIds.isEmpty();
+            return true;
+        } catch (IOException e) {
+            System.out.println(e);
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the co-star graph, bumping graphVersion and dropping all cached BFS results,
+     * since vertex ids of the old graph mean nothing in the new one.
+     */
+    protected void setGraph(IndexedGraph<String, Set<String>> graph) {
+        this.graph = graph;
+        castGraph = null;
+        graphChanged();
+    }
+
+    /**
+     * Switches to bipartite mode with the given actor-movie graph (see buildCastGraph).
+     */
+    protected void setCastGraph(CastGraph castGraph) {
+        this.castGraph = castGraph;
+        graph = new CSRGraph<>(new UndirectedGraph<>());
+        graphChanged();
     }
 
     /**
-     * Runs BFS from the current center (this.center) and stores the resulting shortest-path tree
-     * in bfsTree. The edges in bfsTree point from each child actor to its parent actor in the path.
+     * Bumps graphVersion and drops all BFS results and the degree index of the old graph.
+     */
+    private void graphChanged() {
+        graphVersion++;
+        centerBFS = null;
+        bfsCache.clear();
+        degreeIndex = null;
+    }
+
+    /**
+     * Whether the actor is in the dataset (i.e., co-starred with anyone).
+     */
+    public boolean hasActor(String actor) {
+        return castGraph != null ? castGraph.hasActor(actor) : graph.hasVertex(actor);
+    }
+
+    /**
+     * The vertex id of the actor, or -1 if they're not in the dataset.
+     */
+    protected int actorId(String actor) {
+        return castGraph != null ? castGraph.indexOf(actor) : graph.indexOf(actor);
+    }
+
+    /**
+     * The name of the actor with the given vertex id.
+     */
+    protected String actorName(int id) {
+        return castGraph != null ? castGraph.actorAt(id) : graph.vertexAt(id);
+    }
+
+    /**
+     * Returns the BFS from the current center on the current graph, running it only if
+     * centerBFS is missing or stale (computed for another center or an older graph).
+     */
+    protected BFSResult currentBFS() {
+        if (centerBFS == null || !centerBFS.isFor(actorId(center), graphVersion)) {
+            doBFS();
+        }
+        return centerBFS;
+    }
+
+    /**
+     * Runs BFS from the current center (this.center) and stores the depth and parent of every
+     * reachable actor in centerBFS. Recent results are taken from bfsCache instead of rerunning BFS.
+     * On a large graph, the BFS runs on all cores.
      */
     protected void doBFS() {
-        bfsTree = GraphLib.bfs(graph, center);
+        int source = actorId(center);
+        centerBFS = bfsCache.get(center);
+        if (centerBFS == null || !centerBFS.isFor(source, graphVersion)) {
+            BFSWorkspace ws;
+            int n;
+            if (castGraph != null) {
+                ws = castGraph.bfs(source, GraphLib.workspace());
+                n = castGraph.numActors();
+            } else {
+                ws = GraphLib.parallelBfs(graph, source, GraphLib.workspace());
+                n = graph.numVertices();
+            }
+            centerBFS = new BFSResult(ws, n, graphVersion);
+            bfsCache.put(center, centerBFS);
+        }
+    }
+
+    /**
+     * Prints how many BFS results are cached, and how many times a center's BFS was found in
+     * the cache (hits) or had to be run (misses).
+     */
+    protected void printCacheStats() {
+        System.out.println("BFS cache: " + bfsCache.size() + " results (" + bfsCache.bytes() + " bytes)");
+        System.out.println("Hits: " + bfsCache.hits() + ", misses: " + bfsCache.misses());
     }
 
     /**
-     * Prints the shortest path from a given actor to the current center, using the bfsTree.
+     * Prints the shortest path from a given actor to the current center.
      * Shows the "Bacon number" (distance in co-starring steps) and each link in the path.
+     * The path comes from a bidirectional BFS, so no BFS from the center is needed
+     * (except in bipartite mode, where it follows the center's BFS).
      *
      * @param actor The name of the actor from which we want to find a path to the center.
      */
     protected void printPath(String actor) {
         // If the actor is not even in the main graph, show an error
-        if (!graph.hasVertex(actor)) {
+        if (!hasActor(actor)) {
             System.out.println(actor + " is not in the dataset.");
             return;
         }
-        // If BFS tree isn't built or doesn't have the center, build it
-        if (bfsTree == null || !bfsTree.hasVertex(center)) {
-            doBFS();
-        }
         // If the actor is already the center, just print that
         if (actor.equals(center)) {
             System.out.println(actor + " is the center of the universe.");
             return;
         }
-        // If the BFS tree doesn't contain this actor, then they're not connected
-        if (!bfsTree.hasVertex(actor)) {
+
+        // Search from both ends at once; an empty path means they're not connected
+        GraphPath<String, Set<String>> path = castGraph != null
+                ? castGraph.path(currentBFS(), actorId(actor))
+                : GraphLib.bidirectionalPath(graph, center, actor);
+        if (path.isEmpty()) {
             System.out.println(actor + " is not connected to " + center);
             return;
         }
 
-        // Get the path from actor back to the center
-        List<String> path = GraphLib.getPath(bfsTree, actor);
+        System.out.println(actor + "'s number is " + path.length());
 
-        // Distance is number of edges, which is path.size() - 1
-        int distance = path.size() - 1;
-        System.out.println(actor + "'s number is " + distance);
+        // Print each "appearance chain" along the path, with the movies a1 and a2 co-starred in
+        for (int i = 0; i < path.length(); i++) {
+            String a1 = path.vertex(i);
+            String a2 = path.vertex(i + 1);
+            System.out.println(a1 + " appeared in " + path.label(i) + " with " + a2);
+        }
+    }
 
-        // Print each "appearance chain" along the path
-        for (int i = 0; i < path.size() - 1; i++) {
-            String a1 = path.get(i);
-            String a2 = path.get(i + 1);
-            // Retrieve the set of movies in which a1 and a2 co-starred
-            Set<String> movies = graph.getLabel(a1, a2);
-            System.out.println(a1 + " appeared in " + movies + " with " + a2);
+    /**
+     * The number of co-stars (outDegree) of every actor, by vertex id.
+     */
+    protected int[] coStarCounts() {
+        if (castGraph != null) {
+            return castGraph.coStarCounts();
         }
+        int[] counts = new int[graph.numVertices()];
+        for (int id = 0; id < counts.length; id++) {
+            counts[id] = graph.edgeEnd(id) - graph.edgeStart(id);
+        }
+        return counts;
     }
 
     /**
-     * Lists actors whose outDegree (co-star count) is in the range [low..high].
-     * Then sorts them by their numeric degree before printing.
+     * The index of actors by co-star count for the current graph, building it if there is none.
      */
-    protected void listActorsByDegree(int low, int high) {
-        List<String> result = new ArrayList<>();
-        for (String actor : graph.vertices()) {
-            int deg = graph.outDegree(actor);
-            // Check if the degree is in the specified range
-            if (deg >= low && deg <= high) {
-                result.add(actor + " (" + deg + " co-stars)");
-            }
+    protected DegreeIndex degreeIndex() {
+        if (degreeIndex == null) {
+            degreeIndex = new DegreeIndex(coStarCounts());
         }
-        if (result.isEmpty()) {
+        return degreeIndex;
+    }
+
+    /**
+     * Lists actors whose outDegree (co-star count) is in the range [low..high], in ascending
+     * order of degree. The degree index already has the actors sorted by degree, so they are
+     * one slice of it.
+     */
+    protected void listActorsByDegree(int low, int high) {
+        DegreeIndex index = degreeIndex();
+        int start = index.startOf(low), end = index.endOf(high);
+        if (start >= end) {
             System.out.println("No actors found with degree between " + low + " and " + high + ".");
             return;
         }
 
-        // Sort by numeric degree in ascending order
-        result.sort((a, b) -> {
-            int idxA = a.lastIndexOf('(');
-            String subA = a.substring(idxA + 1).replaceAll("[^0-9]", "");
-            int dA = Integer.parseInt(subA);
-
-            int idxB = b.lastIndexOf('(');
-            String subB = b.substring(idxB + 1).replaceAll("[^0-9]", "");
-            int dB = Integer.parseInt(subB);
-
-            return Integer.compare(dA, dB);
-        });
-
         System.out.println("Actors with degree between " + low + " and " + high + ":");
-        for (String s : result) {
-            System.out.println("  " + s);
+        for (int i = start; i < end; i++) {
+            System.out.println("  " + actorName(index.idAt(i)) + " (" + index.degreeAt(i) + " co-stars)");
         }
     }
 
     /**
-     * Finds the best centers by average separation. For each actor in the graph,
-     * we run a BFS to get a shortest-path tree, then compute that actor's average separation.
-     * Finally, we sort them in ascending order of average separation and print the top n.
+     * Lists the n actors with the most co-stars, most first, straight from the degree index.
+     */
+    protected void listMostConnected(int n) {
+        DegreeIndex index = degreeIndex();
+        int[] top = index.top(n);
+        System.out.println("Top " + top.length + " most connected actors:");
+        for (int id : top) {
+            System.out.println("  " + actorName(id) + " (" + index.degreeOf(id) + " co-stars)");
+        }
+    }
+
+    /**
+     * Finds the best centers by average separation, running the BFS sweeps in parallel.
      *
-     * Note: This can take a while on large datasets because it does BFS for every actor.
+     * @see #findBestCenters(int, boolean)
      */
     protected void findBestCenters(int n) {
-        System.out.println("Computing best centers... This may take a while.");
+        findBestCenters(n, true);
+    }
 
-        Map<String, Double> avgSeparation = new HashMap<>();
+    /**
+     * Finds the best centers by average separation. For each actor in the graph,
+     * we compute that actor's average separation with a multi-source BFS (64 actors per sweep).
+     * Then we keep the n actors with the lowest average separation in a heap and print them
+     * in ascending order (ties broken by name).
+     *
+     * Note: This can take a while on large datasets because it does BFS for every actor,
+     * which is why the BFS sweeps can be spread over all cores.
+     *
+     * @param n         how many centers to print
+     * @param parallel  whether to run the BFS sweeps on multiple threads
+     */
+    protected void findBestCenters(int n, boolean parallel) {
+        System.out.println("Computing best centers... This may take a while.");
 
-        // For each actor, do a BFS from that actor, then compute the average separation
-        for (String actor : graph.vertices()) {
-            double avgSep = GraphLib.averageSeparation(GraphLib.bfs(graph, actor), actor);
-            avgSeparation.put(actor, avgSep);
+        // avgSeparation[id] is the average separation of the actor with that vertex id
+        double[] avgSeparation = castGraph != null
+                ? castGraph.averageSeparations(parallel)
+                : GraphLib.averageSeparations(graph, parallel);
+
+        // Keep the best n in a heap whose head is the worst of them, so it can be evicted
+        Comparator<Integer> byAvgSeparation = Comparator.<Integer>comparingDouble(id -> avgSeparation[id])
+                .thenComparing(this::actorName);
+        int top = Math.max(0, Math.min(n, avgSeparation.length));
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, top), byAvgSeparation.reversed());
+        for (int id = 0; id < avgSeparation.length && top > 0; id++) {
+            if (best.size() < top) {
+                best.add(id);
+            } else if (byAvgSeparation.compare(id, best.peek()) < 0) {
+                best.poll();
+                best.add(id);
+            }
         }
 
-        // Sort by ascending average separation
-        List<String> sortedActors = new ArrayList<>(avgSeparation.keySet());
-        sortedActors.sort(Comparator.comparingDouble(avgSeparation::get));
+        // Heap order is only partial, so sort the n survivors for printing
+        List<Integer> sortedActors = new ArrayList<>(best);
+        sortedActors.sort(byAvgSeparation);
 
         System.out.println("Top " + n + " best centers of the universe:");
-        for (int i = 0; i < Math.min(n, sortedActors.size()); i++) {
-            String actor = sortedActors.get(i);
-            System.out.println("  " + actor + " (Avg separation: " + avgSeparation.get(actor) + ")");
+        for (int id : sortedActors) {
+            System.out.println("  " + actorName(id) + " (Avg separation: " + avgSeparation[id] + ")");
         }
     }
 
     /**
      * Lists actors by their BFS separation distance to the current center.
-     * We first compute distances by traversing the BFS tree (child->parent edges)
-     * in reverse (i.e., from parent to child). Then we pick those whose distances
-     * fall between 'low' and 'high'. Finally, we sort them by distance.
+     * The current center's BFS visited the actors depth by depth, so its visit order already
+     * has them bucketed by separation, in ascending order: the actors with separations
+     * between 'low' and 'high' are one slice of it, which is printed as is (no sorting).
      */
     protected void listBySeparationRange(int low, int high) {
-        // If there's no BFS tree or the center isn't in the BFS tree, build it
-        if (bfsTree == null || !bfsTree.hasVertex(center)) {
-            doBFS();
-        }
-
-        // We'll store distances (center = 0) as we move down child->parent edges in reverse
-        Map<String, Integer> distance = new HashMap<>();
-        Queue<String> queue = new LinkedList<>();
-
-        distance.put(center, 0);
-        queue.add(center);
-
-        // BFS in the BFS tree, using inNeighbors because each child's parent is "outNeighbor"
-        // So from the parent's perspective, children are "inNeighbors".
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            int currentDistance = distance.get(current);
-
-            for (String child : bfsTree.inNeighbors(current)) {
-                if (!distance.containsKey(child)) {
-                    distance.put(child, currentDistance + 1);
-                    queue.add(child);
-                }
-            }
-        }
-
-        // Now gather all actors whose separation is in [low..high]
-        List<String> result = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : distance.entrySet()) {
-            int sep = entry.getValue();
-            if (sep >= low && sep <= high) {
-                result.add(entry.getKey() + " (Separation: " + sep + ")");
-            }
-        }
+        BFSResult bfs = currentBFS();
 
-        if (result.isEmpty()) {
+        // The slice of the visit order holding separations low..high
+        int start = bfs.startOfDistance(low);
+        int end = high < low ? start : bfs.startOfDistance(high == Integer.MAX_VALUE ? high : high + 1);
+        if (start >= end) {
             System.out.println("No actors found with separation between " + low + " and " + high + ".");
             return;
         }
 
-        // Sort by the numeric separation
         System.out.println("Actors with separation between " + low + " and " + high + ":");
-        result.sort((a, b) -> {
-            int sepA = Integer.parseInt(a.replaceAll("[^0-9]", ""));
-            int sepB = Integer.parseInt(b.replaceAll("[^0-9]", ""));
-            return Integer.compare(sepA, sepB);
-        });
-
-        // Print them in ascending order
-        for (String s : result) {
-            System.out.println("  " + s);
+        for (int i = start; i < end; i++) {
+            int id = bfs.reachedAt(i);
+            System.out.println("  " + actorName(id) + " (Separation: " + bfs.distance(id) + ")");
         }
     }
 }
@@ -13,25 +13,53 @@ public class BaconGameTest {
     /**
      * The entry point of the program. This method:
      * 1) Creates a BaconGame object.
-     * 2) Loads actor, movie, and movie-actor data from files.
-     * 3) Builds the co-star graph.
+     * 2) Opens the saved snapshot of the co-star graph if it is up to date (memory-mapped).
+     * 3) Otherwise loads actor, movie, and movie-actor data from files, builds the co-star graph,
+     *    and saves a snapshot of it, switching over to the mapped snapshot. (In bipartite mode,
+     *    it builds the actor-movie graph instead, and in lazy mode, a co-star graph without
+     *    stored labels.)
      * 4) Sets the default "center of the universe" to Kevin Bacon.
      * 5) Repeatedly reads user commands from standard input, then
      *    dispatches those commands to the BaconGame for processing.
      *
-     * @param args Command-line arguments (unused in this program).
+     * @param args Command-line arguments: "bipartite" runs the game on the actor-movie graph,
+     *             "lazy" on a co-star graph that computes shared movies only when printing paths,
+     *             "heap" on a co-star graph kept on the heap (read from the snapshot, or built
+     *             by buildGraph), rather than one that stays in its memory-mapped snapshot file.
      */
     public static void main(String[] args) {
         // Create a BaconGame instance
         BaconGame game = new BaconGame();
 
-        // Load the larger dataset (actors, movies, and the links between them).
-        game.loadActors("inputs/actors.txt");
-        game.loadMovies("inputs/movies.txt");
-        game.loadMovieActors("inputs/movie-actors.txt");
-
-        // Construct the main graph of actors after data is loaded.
-        game.buildGraph();
+        // Open the graph from its snapshot if it's newer than the data files.
+        // (Bipartite and lazy modes always build their graph from the data files.)
+        boolean bipartite = args.length > 0 && args[0].equals("bipartite");
+        boolean lazy = args.length > 0 && args[0].equals("lazy");
+        boolean heap = args.length > 0 && args[0].equals("heap");
+        String[] inputs = { "inputs/actors.txt", "inputs/movies.txt", "inputs/movie-actors.txt" };
+        if (bipartite || lazy || !game.loadSnapshot("inputs/graph.snapshot", !heap, inputs)) {
+            // Load the larger dataset (actors, movies, and the links between them).
+            game.loadActors(inputs[0]);
+            game.loadMovies(inputs[1]);
+            game.loadMovieActors(inputs[2]);
+
+            // Construct the main graph of actors after data is loaded,
+            // and save a snapshot of it so the next start can skip all this.
+            if (bipartite) {
+                game.buildCastGraph();
+            } else if (lazy) {
+                game.buildGraphLazyLabels();
+            } else if (heap) {
+                // Build the graph on the heap with a single pass of bulk edge inserts
+                game.buildGraph();
+                game.saveSnapshot("inputs/graph.snapshot");
+            } else {
+                game.buildGraphParallel();
+                game.saveSnapshot("inputs/graph.snapshot");
+                // Switch over to the off-heap graph in the file just written
+                game.loadSnapshot("inputs/graph.snapshot", inputs);
+            }
+        }
 
         // Set "Kevin Bacon" as the default center of the acting universe.
         game.center = "Kevin Bacon";
@@ -74,7 +102,10 @@ public class BaconGameTest {
                          d <low> <high> - list actors with co-stars between <low> and <high>
                          s <low> <high> - list actors sorted by separation from center
                          c <n>  - find the top <n> best 'centers of the universe'
+                         k <n>  - list the <n> actors with the most co-stars
                          i  - show number of connected actors & average separation
+                         n  - show how many actors are at each separation & how many aren't connected
+                         b  - show BFS cache hits & misses
                          q  - quit
                     """);
                     break;
@@ -94,7 +125,7 @@ public class BaconGameTest {
                         System.out.println("Usage: u <actor name>");
                     } else {
                         // Verify <name> is in the graph before changing center
-                        if (!game.graph.hasVertex(rest)) {
+                        if (!game.hasActor(rest)) {
                             System.out.println(rest + " is not in the dataset. Center not changed.");
                         } else if (game.center.equals(rest)) {
                             System.out.println(rest + " is already the center of the universe.");
@@ -152,25 +183,50 @@ public class BaconGameTest {
                     }
                     break;
 
-                case "i":
-                    // "i" => show how many actors are connected and the average separation from center
-                    // Ensure we have an up-to-date BFS tree for the current center
-                    game.doBFS();
-
-                    // Count how many vertices (besides the center) appear in bfsTree
-                    int conn = 0;
-                    for (String v : game.bfsTree.vertices()) {
-                        if (!v.equals(game.center)) {
-                            conn++;
+                case "k":
+                    // "k <n>" => list the n actors with the most co-stars
+                    if (rest.isEmpty()) {
+                        System.out.println("Usage: k <n>");
+                    } else {
+                        try {
+                            int n = Integer.parseInt(rest);
+                            game.listMostConnected(n);
+                        } catch (NumberFormatException e) {
+                            System.out.println("Invalid input. Please enter a number for <n>.");
                         }
                     }
-                    double avg = GraphLib.averageSeparation(game.bfsTree, game.center);
+                    break;
+
+                case "i":
+                    // "i" => show how many actors are connected and the average separation from center
+                    // Get the BFS for the current center (only rerun if the center or graph changed)
+                    BFSResult bfs = game.currentBFS();
+
+                    // Count how many vertices (besides the center) the BFS reached;
+                    // the BFS already tallied the depths, so none of this revisits the actors
+                    int conn = Math.max(bfs.size() - 1, 0);
+                    double avg = bfs.averageSeparation();
 
                     // Print connected count and average separation
                     System.out.println(game.center + " is connected to " + conn + " actors.");
                     System.out.println("Average separation: " + avg);
                     break;
 
+                case "n":
+                    // "n" => show how many actors are at each separation from center,
+                    // and how many aren't connected to center at all
+                    BFSResult levels = game.currentBFS();
+                    for (int d = 1; d <= levels.maxDistance(); d++) {
+                        System.out.println("  Separation " + d + ": " + levels.countAtDistance(d) + " actors");
+                    }
+                    System.out.println(levels.numUnreached() + " actors are not connected to " + game.center + ".");
+                    break;
+
+                case "b":
+                    // "b" => show how often a center's BFS came from the cache
+                    game.printCacheStats();
+                    break;
+
                 default:
                     // For unknown commands, prompt user to check the help menu.
                     System.out.println("Unknown command. Enter 'h' to see available commands.");
@@ -0,0 +1,152 @@
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed sparse row (CSR) implementation of the Graph interface for undirected graphs,
+ * with its arrays on the heap (see AbstractCSRGraph for what all CSR graphs share).
+ * The graph is frozen: it is built once (from another graph, or from ready-made CSR arrays)
+ * and cannot be modified afterwards.
+ *
+ * Every vertex gets a dense int id, kept in a VertexIndex (a HashMap from an array of the
+ * vertices, unless a subclass brings its own). The neighbors of vertex id are stored, sorted by id, in
+ * neighbors[offsets[id] .. offsets[id+1]), and labels[e] holds the label of edge e.
+ * Keeping the adjacency in two flat int arrays (instead of a HashMap per vertex) makes BFS
+ * scan contiguous memory and costs only a few bytes per edge.
+ */
+public class CSRGraph<V,E> extends AbstractCSRGraph<V,E> {
+    protected final VertexIndex<V> vertices;    // id <-> vertex
+    protected final int[] offsets;              // edges of id are offsets[id] .. offsets[id+1]-1
+    protected final int[] neighbors;            // edge -> target id, sorted within each vertex
+    protected final Object[] labels;            // edge -> label (null if a subclass stores labels itself)
+
+    /**
+     * Freezes an undirected graph into CSR form.
+     * Edge labels are copied by reference, so both directions of an edge share one label.
+     *
+     * @param g  the graph to copy; every edge u->v must have a matching edge v->u
+     * @throws IllegalArgumentException if g has an edge without its reverse
+     */
+    @SuppressWarnings("unchecked")
+    public CSRGraph(Graph<V,E> g) {
+        int n = g.numVertices();
+
+        // Assign ids in the source graph's iteration order
+        V[] order = (V[]) new Object[n];
+        int id = 0;
+        for (V v : g.vertices()) {
+            order[id++] = v;
+        }
+        vertices = VertexIndex.of(order);
+
+        // Prefix sums of the degrees give each vertex's slice of the edge arrays
+        offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + g.outDegree(order[i]);
+        }
+        neighbors = new int[offsets[n]];
+        labels = new Object[offsets[n]];
+
+        for (int i = 0; i < n; i++) {
+            V v = order[i];
+            int e = offsets[i];
+            for (V w : g.outNeighbors(v)) {
+                if (!g.hasEdge(w, v)) {
+                    throw new IllegalArgumentException("Edge " + v + " -> " + w + " has no reverse edge");
+                }
+                neighbors[e++] = vertices.indexOf(w);
+            }
+            // Sort each slice so that hasEdge/getLabel can binary search it
+            Arrays.sort(neighbors, offsets[i], offsets[i + 1]);
+            for (e = offsets[i]; e < offsets[i + 1]; e++) {
+                labels[e] = g.getLabel(v, order[neighbors[e]]);
+            }
+        }
+    }
+
+    /**
+     * Wraps arrays that are already in CSR form (e.g., read back from a snapshot file).
+     * The arrays are used as-is, not copied.
+     *
+     * @param vertices   id -> vertex
+     * @param offsets    the edges of id are offsets[id] .. offsets[id+1]-1
+     * @param neighbors  edge -> target id, sorted within each vertex, with every edge's reverse present
+     * @param labels     edge -> label
+     */
+    public CSRGraph(V[] vertices, int[] offsets, int[] neighbors, Object[] labels) {
+        this(VertexIndex.of(vertices), offsets, neighbors, labels, labels.length);
+    }
+
+    /**
+     * For subclasses that store edge labels in their own way (and override edgeLabel):
+     * wraps the CSR arrays without a labels array, with the given vertex ids.
+     */
+    protected CSRGraph(VertexIndex<V> vertices, int[] offsets, int[] neighbors) {
+        this(vertices, offsets, neighbors, null, neighbors.length);
+    }
+
+    private CSRGraph(VertexIndex<V> vertices, int[] offsets, int[] neighbors, Object[] labels, int labelCount) {
+        int n = vertices.size();
+        if (offsets.length != n + 1 || offsets[n] != neighbors.length || labelCount != neighbors.length) {
+            throw new IllegalArgumentException("CSR arrays have inconsistent lengths");
+        }
+        this.vertices = vertices;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.labels = labels;
+    }
+
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    public int numEdges() {
+        return neighbors.length;
+    }
+
+    public void forEachOutNeighbor(V v, Consumer<? super V> action) {
+        int id = idOf(v);
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            action.accept(vertices.get(neighbors[e]));
+        }
+    }
+
+    public void forEachOutEdge(V v, BiConsumer<? super V, ? super E> action) {
+        int id = idOf(v);
+        for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+            action.accept(vertices.get(neighbors[e]), edgeLabel(id, e));
+        }
+    }
+
+    public void forEachOutNeighborId(int id, IntConsumer action) {
+        for (int e = offsets[id], end = offsets[id + 1]; e < end; e++) {
+            action.accept(neighbors[e]);
+        }
+    }
+
+    public int indexOf(V v) {
+        return vertices.indexOf(v);
+    }
+
+    public V vertexAt(int id) {
+        return vertices.get(id);
+    }
+
+    public int edgeStart(int id) {
+        return offsets[id];
+    }
+
+    public int edgeEnd(int id) {
+        return offsets[id + 1];
+    }
+
+    public int edgeTarget(int e) {
+        return neighbors[e];
+    }
+
+    @SuppressWarnings("unchecked")
+    protected E edgeLabel(int source, int e) {
+        return (E) labels[e];
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * CastGraph is the bipartite actor-movie graph: each actor is linked to the movies they
+ * appeared in, and each movie to its cast. Two actors are co-stars if they share a movie, but
+ * unlike the co-star graph, no actor-actor edges are stored, so a movie with a cast of k costs
+ * k links instead of k(k-1)/2 edges (each with its own set of titles).
+ *
+ * Both directions are stored in CSR form over dense ids:
+ *   - the movies of actor a are actorMovies[actorOffsets[a] .. actorOffsets[a+1]), sorted
+ *   - the cast of movie m is movieActors[movieOffsets[m] .. movieOffsets[m+1])
+ *
+ * BFS alternates actor and movie layers, and expands each movie only once, which gives exactly
+ * the distances of a BFS over the co-star graph. Shared movies (the co-star edge labels) are
+ * computed by intersecting two actors' sorted filmographies.
+ */
+public class CastGraph {
+    private final NameDictionary actors;        // actor id <-> name
+    private final String[] titles;              // movie id -> title
+    private final int[] actorOffsets, actorMovies;
+    private final int[] movieOffsets, movieActors;
+
+    /**
+     * Builds the actor-movie graph.
+     *
+     * @param actors  the actor names, whose dictionary ids are the actor ids
+     * @param casts   movie id -> ids of the actors in it (repeats are ignored)
+     * @param titles  movie id -> title
+     */
+    public CastGraph(NameDictionary actors, int[][] casts, String[] titles) {
+        this.actors = actors;
+        this.titles = titles;
+        int n = actors.size();
+
+        // Movie -> cast, with each cast sorted and without repeats
+        movieOffsets = new int[casts.length + 1];
+        int[][] uniqueCasts = new int[casts.length][];
+        for (int m = 0; m < casts.length; m++) {
+            uniqueCasts[m] = IntStream.of(casts[m]).sorted().distinct().toArray();
+            movieOffsets[m + 1] = movieOffsets[m] + uniqueCasts[m].length;
+        }
+        movieActors = new int[movieOffsets[casts.length]];
+        for (int m = 0; m < casts.length; m++) {
+            System.arraycopy(uniqueCasts[m], 0, movieActors, movieOffsets[m], uniqueCasts[m].length);
+        }
+
+        // Actor -> movies, by counting sort; going through movies in order keeps each list sorted
+        actorOffsets = new int[n + 1];
+        for (int a : movieActors) actorOffsets[a + 1]++;
+        for (int a = 0; a < n; a++) actorOffsets[a + 1] += actorOffsets[a];
+        actorMovies = new int[movieActors.length];
+        int[] fill = Arrays.copyOf(actorOffsets, n);
+        for (int m = 0; m < casts.length; m++) {
+            for (int i = movieOffsets[m]; i < movieOffsets[m + 1]; i++) {
+                actorMovies[fill[movieActors[i]]++] = m;
+            }
+        }
+    }
+
+    /** How many actors there are */
+    public int numActors() {
+        return actors.size();
+    }
+
+    /** How many movies there are */
+    public int numMovies() {
+        return titles.length;
+    }
+
+    /** How many actor-movie links there are (the total size of all casts) */
+    public int numLinks() {
+        return movieActors.length;
+    }
+
+    /** Whether the actor is in the graph */
+    public boolean hasActor(String actor) {
+        return actors.indexOf(actor) >= 0;
+    }
+
+    /** The id of the actor, or -1 if they're not in the graph */
+    public int indexOf(String actor) {
+        return actors.indexOf(actor);
+    }
+
+    /** The name of the actor with the given id */
+    public String actorAt(int id) {
+        return actors.get(id);
+    }
+
+    /** All actor names, in id order */
+    public Iterable<String> actors() {
+        return new AbstractList<String>() {
+            public String get(int id) {
+                return actors.get(id);
+            }
+
+            public int size() {
+                return actors.size();
+            }
+        };
+    }
+
+    /**
+     * BFS over actors from the actor with id 'source', alternating actor and movie layers:
+     * an actor at depth d expands each of their movies not yet expanded, and every unreached
+     * actor in that movie gets depth d+1. The depths and parents recorded in 'ws' are the same
+     * as for a BFS over the co-star graph (the parent is a co-star, not a movie).
+     *
+     * @return  ws, for convenience
+     */
+    public BFSWorkspace bfs(int source, BFSWorkspace ws) {
+        int n = actors.size();
+        ws.reset(n, source);
+        if (source < 0 || source >= n) {
+            return ws;
+        }
+        int[] dist = ws.dist, parent = ws.parent, queue = ws.queue;
+        int epoch = ws.nextMarkEpoch(titles.length);
+        int[] expanded = ws.mark;     // expanded[movie] == epoch once the movie has been expanded
+
+        dist[source] = 0;
+        parent[source] = -1;
+        queue[0] = source;
+        ws.visit(source);
+        int head = 0, tail = 1, levelEnd = 1;
+        while (head < tail) {
+            if (head == levelEnd) {
+                // Everything queued while expanding the previous level is one deeper
+                ws.endLevel(levelEnd);
+                levelEnd = tail;
+            }
+            int actor = queue[head++];
+            int nextDepth = dist[actor] + 1;
+            for (int i = actorOffsets[actor]; i < actorOffsets[actor + 1]; i++) {
+                int movie = actorMovies[i];
+                // A movie's cast is all reached the first time it is expanded
+                if (expanded[movie] == epoch) continue;
+                expanded[movie] = epoch;
+                for (int j = movieOffsets[movie]; j < movieOffsets[movie + 1]; j++) {
+                    int costar = movieActors[j];
+                    if (dist[costar] < 0) {
+                        dist[costar] = nextDepth;
+                        parent[costar] = actor;
+                        queue[tail++] = costar;
+                        ws.visit(costar);
+                    }
+                }
+            }
+        }
+        ws.endLevel(tail);
+        ws.size = tail;
+        return ws;
+    }
+
+    /**
+     * Computes the average separation of every actor. The actors are processed 64 at a time
+     * by multiSourceBFS(...), as GraphLib.averageSeparations does over the co-star graph;
+     * in parallel mode the batches are spread over the common ForkJoinPool, each worker
+     * thread using its own workspace.
+     *
+     * @return  an array whose entry a is the average separation of actor id a
+     */
+    public double[] averageSeparations(boolean parallel) {
+        int n = actors.size();
+        int[] reached = new int[n];
+        long[] totalDistance = new long[n];
+
+        IntStream batches = IntStream.range(0, (n + 63) / 64);
+        if (parallel) {
+            batches = batches.parallel();
+        }
+        batches.forEach(b -> {
+            int first = b * 64;
+            multiSourceBFS(first, Math.min(64, n - first), reached, totalDistance, GraphLib.workspace());
+        });
+
+        double[] result = new double[n];
+        for (int s = 0; s < n; s++) {
+            result[s] = reached[s] > 0 ? (double) totalDistance[s] / reached[s] : 0.0;
+        }
+        return result;
+    }
+
+    /**
+     * Multi-source BFS from up to 64 actors, the ids first .. first+count-1, as in
+     * GraphLib.multiSourceBFS but alternating actor and movie layers. Each actor and each movie
+     * carries a long bitmask with bit i standing for source first+i. At each level, a movie
+     * gets the sources of its frontier actors that haven't expanded it yet (so each source
+     * expands a movie only once, as in bfs), and each cast member of such a movie gets those
+     * of the movie's sources that haven't reached them yet, one level deeper.
+     * Only distance sums are kept, not parents.
+     *
+     * @param first          the id of the first source
+     * @param count          how many consecutive sources (at most 64)
+     * @param reached        receives, at each source's id, how many other actors it reaches
+     * @param totalDistance  receives, at each source's id, the sum of distances to them
+     * @param ws             the workspace whose bitmasks are used as scratch space
+     */
+    public void multiSourceBFS(int first, int count, int[] reached, long[] totalDistance, BFSWorkspace ws) {
+        if (count < 1 || count > 64) {
+            throw new IllegalArgumentException("MS-BFS handles 1 to 64 sources, not " + count);
+        }
+        int n = actors.size(), movies = titles.length;
+        ws.resetMultiSource(n);
+        ws.resetMultiSourceOther(movies);
+        long[] seen = ws.seen, visit = ws.visit, visitNext = ws.visitNext;
+        long[] movieSeen = ws.otherSeen, movieVisit = ws.otherVisit;
+
+        // Each source starts out seeing itself, at distance 0
+        for (int i = 0; i < count; i++) {
+            seen[first + i] = visit[first + i] = 1L << i;
+            reached[first + i] = 0;
+            totalDistance[first + i] = 0;
+        }
+
+        for (int depth = 1; ; depth++) {
+            // The sources that expand each movie, through their frontier actors in it
+            for (int a = 0; a < n; a++) {
+                long frontier = visit[a];
+                if (frontier == 0) continue;
+                for (int i = actorOffsets[a]; i < actorOffsets[a + 1]; i++) {
+                    int movie = actorMovies[i];
+                    long newlyExpanded = frontier & ~movieSeen[movie];
+                    if (newlyExpanded != 0) {
+                        movieVisit[movie] |= newlyExpanded;
+                        movieSeen[movie] |= newlyExpanded;
+                    }
+                }
+            }
+
+            // The sources that reach each cast member for the first time, through those movies
+            boolean expanded = false;
+            for (int movie = 0; movie < movies; movie++) {
+                long through = movieVisit[movie];
+                if (through == 0) continue;
+                movieVisit[movie] = 0;
+                for (int j = movieOffsets[movie]; j < movieOffsets[movie + 1]; j++) {
+                    int costar = movieActors[j];
+                    long newlySeen = through & ~seen[costar];
+                    if (newlySeen != 0) {
+                        visitNext[costar] |= newlySeen;
+                        seen[costar] |= newlySeen;
+                        expanded = true;
+                    }
+                }
+            }
+            if (!expanded) break;
+
+            // Credit each newly reached actor to its sources, and advance the frontier
+            for (int a = 0; a < n; a++) {
+                long newlySeen = visitNext[a];
+                visit[a] = newlySeen;
+                visitNext[a] = 0;
+                while (newlySeen != 0) {
+                    int i = Long.numberOfTrailingZeros(newlySeen);
+                    reached[first + i]++;
+                    totalDistance[first + i] += depth;
+                    newlySeen &= newlySeen - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts every actor's distinct co-stars (their degree in the co-star graph).
+     *
+     * @return  an array whose entry a is the number of co-stars of actor id a
+     */
+    public int[] coStarCounts() {
+        int[] counts = new int[actors.size()];
+        // lastCounted[b] == a+1 once b has been counted as a co-star of a
+        int[] lastCounted = new int[counts.length];
+        for (int a = 0; a < counts.length; a++) {
+            lastCounted[a] = a + 1;
+            for (int i = actorOffsets[a]; i < actorOffsets[a + 1]; i++) {
+                int movie = actorMovies[i];
+                for (int j = movieOffsets[movie]; j < movieOffsets[movie + 1]; j++) {
+                    int costar = movieActors[j];
+                    if (lastCounted[costar] != a + 1) {
+                        lastCounted[costar] = a + 1;
+                        counts[a]++;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * The titles of the movies two actors appeared in together (the co-star edge label),
+     * found by merging their sorted filmographies.
+     *
+     * @return  the shared titles, or null if they never co-starred
+     */
+    public Set<String> sharedMovies(int a1, int a2) {
+        Set<String> shared = null;
+        int i = actorOffsets[a1], iEnd = actorOffsets[a1 + 1];
+        int j = actorOffsets[a2], jEnd = actorOffsets[a2 + 1];
+        while (i < iEnd && j < jEnd) {
+            if (actorMovies[i] < actorMovies[j]) i++;
+            else if (actorMovies[i] > actorMovies[j]) j++;
+            else {
+                if (shared == null) shared = new HashSet<>();
+                shared.add(titles[actorMovies[i]]);
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * The path from the BFS source to the given actor, following the parents in 'bfs',
+     * with the shared movies of each hop.
+     *
+     * @return  the path, empty if the actor wasn't reached
+     */
+    public GraphPath<String, Set<String>> path(BFSResult bfs, int actor) {
+        List<String> vertices = new ArrayList<>();
+        List<Set<String>> labels = new ArrayList<>();
+        if (!bfs.reached(actor)) {
+            return new GraphPath<>(vertices, labels);
+        }
+        for (int current = actor; current >= 0; current = bfs.parent(current)) {
+            vertices.add(actors.get(current));
+            if (bfs.parent(current) >= 0) {
+                labels.add(sharedMovies(current, bfs.parent(current)));
+            }
+        }
+        Collections.reverse(vertices);
+        Collections.reverse(labels);
+        return new GraphPath<>(vertices, labels);
+    }
+}
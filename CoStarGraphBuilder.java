@@ -0,0 +1,221 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * CoStarGraphBuilder builds the co-star graph straight into CSR form, optionally on all cores.
+ *
+ * Instead of inserting actor pairs one at a time into a map-based graph, it
+ * 1) shards the movies, and has each shard list its (actor, co-star, movie) triples, in both
+ *    directions, in its own buffers;
+ * 2) buckets all triples by their first actor with a counting sort;
+ * 3) sorts each actor's bucket by (co-star, movie), so that all movies shared with one co-star
+ *    are adjacent, and merges each such run into a single edge, labeled with those movies'
+ *    ids (see MovieCSRGraph) or, for buildUnlabeled, with nothing (see FilmographyCSRGraph).
+ * Steps 1 and 3 work on independent movies / actors, so they run in parallel.
+ */
+public class CoStarGraphBuilder {
+    private static final int SHARDS_PER_THREAD = 4;     // more shards than threads, to balance the load
+
+    /**
+     * The co-star triples of one shard of movies: for each i, actor from[i] co-starred with
+     * actor (int) (toAndMovie[i] >>> 32) in movie (int) toAndMovie[i].
+     */
+    private static class Shard {
+        final int[] from;
+        final long[] toAndMovie;
+
+        Shard(int[][] casts, int firstMovie, int lastMovie) {
+            int count = 0;
+            for (int m = firstMovie; m < lastMovie; m++) {
+                count += casts[m].length * (casts[m].length - 1);
+            }
+            int[] from = new int[count];
+            long[] toAndMovie = new long[count];
+
+            int i = 0;
+            for (int m = firstMovie; m < lastMovie; m++) {
+                for (int a1 : casts[m]) {
+                    for (int a2 : casts[m]) {
+                        if (a1 != a2) {
+                            from[i] = a1;
+                            toAndMovie[i] = ((long) a2 << 32) | m;
+                            i++;
+                        }
+                    }
+                }
+            }
+            // Repeated actors in a cast leave a few unused slots at the end; drop them
+            this.from = i < count ? Arrays.copyOf(from, i) : from;
+            this.toAndMovie = i < count ? Arrays.copyOf(toAndMovie, i) : toAndMovie;
+        }
+    }
+
+    /**
+     * All co-star triples, bucketed by their first actor: the triples of actor a are
+     * entries[start[a] .. start[a+1]-1], each one (co-star << 32 | movie), sorted.
+     */
+    private static class Buckets {
+        final int[] start;
+        final long[] entries;
+
+        Buckets(int n, int[][] casts, boolean parallel) {
+            // 1) Each shard of movies lists its triples in its own buffers
+            int shards = Math.max(1, Math.min(casts.length,
+                    parallel ? ForkJoinPool.getCommonPoolParallelism() * SHARDS_PER_THREAD : 1));
+            Shard[] buffers = range(shards, parallel)
+                    .mapToObj(s -> new Shard(casts, (int) ((long) s * casts.length / shards),
+                            (int) ((long) (s + 1) * casts.length / shards)))
+                    .toArray(Shard[]::new);
+
+            // 2) Counting sort: bucket the triples by their first actor
+            int[] start = new int[n + 1];
+            for (Shard shard : buffers) {
+                for (int a : shard.from) start[a + 1]++;
+            }
+            for (int a = 0; a < n; a++) start[a + 1] += start[a];
+            long[] entries = new long[start[n]];
+            int[] fill = Arrays.copyOf(start, n);
+            for (Shard shard : buffers) {
+                for (int i = 0; i < shard.from.length; i++) {
+                    entries[fill[shard.from[i]]++] = shard.toAndMovie[i];
+                }
+            }
+
+            // 3) Sort each bucket by (co-star, movie), so all movies shared with one co-star are adjacent
+            range(n, parallel).forEach(a -> Arrays.sort(entries, start[a], start[a + 1]));
+            this.start = start;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Builds the co-star graph: actors are connected if they appeared in a movie together, and
+     * each edge is labeled with the set of titles of all movies the two actors share.
+     * The labels are kept as movie ids, and only turned into titles when asked for.
+     *
+     * @param actors    the actor names and their ids (the vertices of the graph)
+     * @param casts     movie -> ids of the actors in it
+     * @param titles    movie -> title
+     * @param parallel  whether to use multiple threads
+     * @return          the co-star graph, with vertex ids as in 'actors'
+     */
+    public static MovieCSRGraph build(VertexIndex<String> actors, int[][] casts, String[] titles, boolean parallel) {
+        int n = actors.size();
+        Buckets buckets = new Buckets(n, casts, parallel);
+        int[] bucketStart = buckets.start;
+        long[] entries = buckets.entries;
+
+        // Count the distinct co-stars, and the space needed for the movie lists of co-stars
+        // shared over several movies
+        int[] offsets = new int[n + 1];
+        int[] listStart = new int[n + 1];
+        range(n, parallel).forEach(a -> {
+            int degree = 0, listSpace = 0;
+            for (int i = bucketStart[a]; i < bucketStart[a + 1]; ) {
+                int end = runEnd(entries, i, bucketStart[a + 1]);
+                int movies = distinctMovies(entries, i, end);
+                degree++;
+                if (movies > 1) listSpace += 1 + movies;
+                i = end;
+            }
+            offsets[a + 1] = degree;
+            listStart[a + 1] = listSpace;
+        });
+        for (int a = 0; a < n; a++) {
+            offsets[a + 1] += offsets[a];
+            listStart[a + 1] += listStart[a];
+        }
+
+        // Merge each run of one co-star into a single edge, labeled with its movie id(s)
+        int[] neighbors = new int[offsets[n]];
+        int[] edgeMovies = new int[offsets[n]];
+        int[] movieLists = new int[listStart[n]];
+        range(n, parallel).forEach(a -> {
+            int e = offsets[a], list = listStart[a];
+            for (int i = bucketStart[a]; i < bucketStart[a + 1]; e++) {
+                int end = runEnd(entries, i, bucketStart[a + 1]);
+                neighbors[e] = (int) (entries[i] >>> 32);
+                int movies = distinctMovies(entries, i, end);
+                if (movies == 1) {
+                    edgeMovies[e] = (int) entries[i];
+                } else {
+                    edgeMovies[e] = -list - 1;
+                    movieLists[list++] = movies;
+                    for (int j = i; j < end; j++) {
+                        if (j == i || entries[j] != entries[j - 1]) movieLists[list++] = (int) entries[j];
+                    }
+                }
+                i = end;
+            }
+        });
+
+        return new MovieCSRGraph(actors, offsets, neighbors, edgeMovies, movieLists, titles);
+    }
+
+    /**
+     * Builds the co-star graph without any edge labels: the graph keeps each actor's
+     * filmography instead, and works out the movies two actors share when asked for.
+     *
+     * @param actors    the actor names and their ids (the vertices of the graph)
+     * @param casts     movie -> ids of the actors in it
+     * @param titles    movie -> title
+     * @param parallel  whether to use multiple threads
+     * @return          the co-star graph, with vertex ids as in 'actors'
+     */
+    public static FilmographyCSRGraph buildUnlabeled(VertexIndex<String> actors, int[][] casts, String[] titles, boolean parallel) {
+        int n = actors.size();
+        Buckets buckets = new Buckets(n, casts, parallel);
+        int[] bucketStart = buckets.start;
+        long[] entries = buckets.entries;
+
+        int[] offsets = new int[n + 1];
+        range(n, parallel).forEach(a -> {
+            int degree = 0;
+            for (int i = bucketStart[a]; i < bucketStart[a + 1]; i = runEnd(entries, i, bucketStart[a + 1])) {
+                degree++;
+            }
+            offsets[a + 1] = degree;
+        });
+        for (int a = 0; a < n; a++) offsets[a + 1] += offsets[a];
+
+        int[] neighbors = new int[offsets[n]];
+        range(n, parallel).forEach(a -> {
+            int e = offsets[a];
+            for (int i = bucketStart[a]; i < bucketStart[a + 1]; i = runEnd(entries, i, bucketStart[a + 1])) {
+                neighbors[e++] = (int) (entries[i] >>> 32);
+            }
+        });
+
+        return new FilmographyCSRGraph(actors, offsets, neighbors, casts, titles);
+    }
+
+    /**
+     * The end of the run of entries with the same co-star as entries[start], in a sorted bucket.
+     */
+    private static int runEnd(long[] entries, int start, int bucketEnd) {
+        int end = start + 1;
+        while (end < bucketEnd && (entries[end] >>> 32) == (entries[start] >>> 32)) end++;
+        return end;
+    }
+
+    /**
+     * The number of distinct movies in a sorted run of one co-star (an actor listed twice in a
+     * cast repeats the entry).
+     */
+    private static int distinctMovies(long[] entries, int start, int end) {
+        int movies = 1;
+        for (int i = start + 1; i < end; i++) {
+            if (entries[i] != entries[i - 1]) movies++;
+        }
+        return movies;
+    }
+
+    /**
+     * The ints 0..n-1, as a parallel stream if asked.
+     */
+    private static IntStream range(int n, boolean parallel) {
+        IntStream range = IntStream.range(0, n);
+        return parallel ? range.parallel() : range;
+    }
+}
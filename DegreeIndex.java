@@ -0,0 +1,123 @@
+import java.util.Arrays;
+
+/**
+ * DegreeIndex lists the vertices of a graph (e.g., actors) sorted by degree (e.g., co-star
+ * count), so that degree queries don't have to scan and sort every vertex:
+ *   - the vertices with degrees in [low..high] are one slice of the sorted list, found with
+ *     two binary searches over the distinct degrees
+ *   - the k vertices with the highest degrees are at the end of the list
+ *
+ * The vertices are sorted with a counting sort: ascending by degree, and by id within a degree.
+ * Besides them, the index keeps each distinct degree with the position where its vertices start
+ * (an offset table), which is far shorter than the list itself.
+ *
+ * The index is a snapshot of the degrees it was built from; whoever owns the graph has to
+ * rebuild it (or drop it) when the graph changes.
+ */
+public class DegreeIndex {
+    private final int[] degreeOf;     // id -> degree
+    private final int[] ids;          // vertex ids, sorted by degree and then by id
+    private final int[] degrees;      // the distinct degrees, ascending
+    private final int[] starts;       // the vertices of degree degrees[j] are ids[starts[j]..starts[j+1])
+
+    /**
+     * Builds the index of the given degrees.
+     *
+     * @param degreeOf  an array whose entry id is the degree of the vertex with that id
+     *                  (kept by the index, so it must not be modified afterwards)
+     */
+    public DegreeIndex(int[] degreeOf) {
+        this.degreeOf = degreeOf;
+        int n = degreeOf.length;
+        int maxDegree = 0;
+        for (int d : degreeOf) {
+            if (d < 0) throw new IllegalArgumentException("Negative degree: " + d);
+            maxDegree = Math.max(maxDegree, d);
+        }
+
+        // Counting sort by degree: count, turn the counts into start positions, then place
+        int[] position = new int[maxDegree + 2];
+        for (int d : degreeOf) {
+            position[d + 1]++;
+        }
+        int distinct = 0;
+        for (int d = 0; d <= maxDegree; d++) {
+            if (position[d + 1] > 0) distinct++;
+            position[d + 1] += position[d];
+        }
+        degrees = new int[distinct];
+        starts = new int[distinct + 1];
+        int j = 0;
+        for (int d = 0; d <= maxDegree; d++) {
+            if (position[d + 1] > position[d]) {
+                degrees[j] = d;
+                starts[j++] = position[d];
+            }
+        }
+        starts[distinct] = n;
+
+        ids = new int[n];
+        for (int id = 0; id < n; id++) {
+            ids[position[degreeOf[id]]++] = id;
+        }
+    }
+
+    /** How many vertices are indexed */
+    public int size() {
+        return ids.length;
+    }
+
+    /** The vertex id at position i of the sorted list */
+    public int idAt(int i) {
+        return ids[i];
+    }
+
+    /** The degree of the vertex at position i of the sorted list */
+    public int degreeAt(int i) {
+        return degreeOf[ids[i]];
+    }
+
+    /** The degree of the vertex with the given id */
+    public int degreeOf(int id) {
+        return degreeOf[id];
+    }
+
+    /**
+     * The position in the sorted list of the first vertex with degree at least 'low'
+     * (size() if there is none).
+     */
+    public int startOf(int low) {
+        int j = Arrays.binarySearch(degrees, low);
+        return starts[j >= 0 ? j : -j - 1];
+    }
+
+    /**
+     * The position in the sorted list just past the last vertex with degree at most 'high'
+     * (0 if there is none).
+     */
+    public int endOf(int high) {
+        int j = Arrays.binarySearch(degrees, high);
+        return starts[j >= 0 ? j + 1 : -j - 1];
+    }
+
+    /**
+     * The ids of the k vertices with the highest degrees, highest first (fewer if there are
+     * fewer vertices). Vertices of equal degree are in id order, and if they don't all fit,
+     * the lowest ids are taken.
+     */
+    public int[] top(int k) {
+        int[] result = new int[Math.max(0, Math.min(k, ids.length))];
+        int filled = 0;
+        // Take whole degree groups from the highest degree down, the last one possibly in part
+        for (int j = degrees.length - 1; filled < result.length; j--) {
+            int count = Math.min(starts[j + 1] - starts[j], result.length - filled);
+            System.arraycopy(ids, starts[j], result, filled, count);
+            filled += count;
+        }
+        return result;
+    }
+
+    public String toString() {
+        return "DegreeIndex of " + ids.length + " vertices with " + degrees.length + " distinct degrees";
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.*;
+
+/**
+ * FilmographyCSRGraph is a CSR co-star graph that stores no edge labels at all: only the
+ * adjacency, plus each actor's filmography as a sorted array of movie ids. The label of an
+ * edge (the movies two actors share) is worked out when it is asked for, by intersecting the
+ * two actors' filmographies.
+ *
+ * Labels are only needed to print a path of a few hops, so computing them on demand costs
+ * next to nothing, while the graph no longer holds anything per edge beyond its target.
+ */
+public class FilmographyCSRGraph extends CSRGraph<String, Set<String>> {
+    private static final int GALLOP_RATIO = 8;  // gallop through the longer filmography if it's this many times longer
+
+    private final int[] filmOffsets;    // the movies of actor id are films[filmOffsets[id] .. filmOffsets[id+1]-1]
+    private final int[] films;          // movie ids, sorted within each actor
+    private final String[] titles;      // movie id -> title
+
+    /**
+     * Wraps the co-star adjacency in CSR form, and builds each actor's filmography from the casts.
+     * The adjacency arrays are used as-is, not copied.
+     *
+     * @param actors     the actor names and their ids
+     * @param offsets    the edges of id are offsets[id] .. offsets[id+1]-1
+     * @param neighbors  edge -> target id, sorted within each vertex, with every edge's reverse present
+     * @param casts      movie id -> ids of the actors in it (repeats are ignored)
+     * @param titles     movie id -> title
+     */
+    public FilmographyCSRGraph(VertexIndex<String> actors, int[] offsets, int[] neighbors, int[][] casts, String[] titles) {
+        super(actors, offsets, neighbors);
+        this.titles = titles;
+        int n = actors.size();
+
+        // Counting sort of the (actor, movie) links by actor; going through the movies in order
+        // keeps each filmography sorted, so a repeated actor shows up as a repeat of the last movie
+        filmOffsets = new int[n + 1];
+        for (int[] cast : casts) {
+            for (int a : cast) filmOffsets[a + 1]++;
+        }
+        for (int a = 0; a < n; a++) filmOffsets[a + 1] += filmOffsets[a];
+        int[] fill = Arrays.copyOf(filmOffsets, n);
+        int[] links = new int[filmOffsets[n]];
+        for (int m = 0; m < casts.length; m++) {
+            for (int a : casts[m]) {
+                if (fill[a] == filmOffsets[a] || links[fill[a] - 1] != m) links[fill[a]++] = m;
+            }
+        }
+
+        // Close up the gaps left by repeats
+        int size = 0;
+        for (int a = 0; a < n; a++) {
+            int start = filmOffsets[a];
+            filmOffsets[a] = size;
+            for (int i = start; i < fill[a]; i++) links[size++] = links[i];
+        }
+        filmOffsets[n] = size;
+        films = size < links.length ? Arrays.copyOf(links, size) : links;
+    }
+
+    /**
+     * The ids of the movies two actors (given by id) appeared in together, in ascending order.
+     * The filmographies are merged, or, if one is much longer, the shorter one's movies are
+     * looked up in it by galloping (exponential then binary search) from the last match.
+     */
+    public int[] sharedMovieIds(int a1, int a2) {
+        int i = filmOffsets[a1], iEnd = filmOffsets[a1 + 1];
+        int j = filmOffsets[a2], jEnd = filmOffsets[a2 + 1];
+        if (iEnd - i > jEnd - j) {
+            // Make a1's the shorter filmography
+            int t = i; i = j; j = t;
+            t = iEnd; iEnd = jEnd; jEnd = t;
+        }
+        int[] shared = new int[iEnd - i];
+        int count = 0;
+
+        if ((long) (iEnd - i) * GALLOP_RATIO < jEnd - j) {
+            for (; i < iEnd && j < jEnd; i++) {
+                int movie = films[i];
+                int step = 1;
+                while (j + step < jEnd && films[j + step] < movie) step *= 2;
+                int found = Arrays.binarySearch(films, j, Math.min(j + step + 1, jEnd), movie);
+                if (found >= 0) {
+                    shared[count++] = movie;
+                    j = found + 1;
+                } else {
+                    j = -found - 1;
+                }
+            }
+        } else {
+            while (i < iEnd && j < jEnd) {
+                if (films[i] < films[j]) i++;
+                else if (films[i] > films[j]) j++;
+                else {
+                    shared[count++] = films[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(shared, count);
+    }
+
+    /**
+     * The titles of the movies on edge e, found by intersecting the filmographies of its ends.
+     */
+    protected Set<String> edgeLabel(int source, int e) {
+        Set<String> movies = new HashSet<>();
+        for (int movie : sharedMovieIds(source, neighbors[e])) {
+            movies.add(titles[movie]);
+        }
+        return movies;
+    }
+}
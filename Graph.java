@@ -1,3 +1,6 @@
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
 /**
  * Simple interface for graphs, simplified from Goodrich & Tamassia
  * Centered on directed edges, with undirected edges treated as pairs of directed edges 
@@ -56,4 +59,26 @@ public interface Graph<V,E> {
 
 	/** Removes the pair of edges between u and v */
 	public void removeUndirected(V u, V v);
+
+	/**
+	 * Calls the action on each neighbor with an edge from the vertex.
+	 * Implementations can override this to walk their storage directly, without an iterator.
+	 */
+	public default void forEachOutNeighbor(V v, Consumer<? super V> action) {
+		for (V w : outNeighbors(v)) action.accept(w);
+	}
+
+	/** Calls the action on each neighbor with an edge to the vertex (see forEachOutNeighbor) */
+	public default void forEachInNeighbor(V v, Consumer<? super V> action) {
+		for (V w : inNeighbors(v)) action.accept(w);
+	}
+
+	/**
+	 * Calls the action on each neighbor with an edge from the vertex, along with the label on
+	 * that edge. Implementations that store labels next to neighbors can override this to avoid
+	 * looking each label up again.
+	 */
+	public default void forEachOutEdge(V v, BiConsumer<? super V, ? super E> action) {
+		for (V w : outNeighbors(v)) action.accept(w, getLabel(v, w));
+	}
 }
@@ -0,0 +1,191 @@
+import java.util.*;
+import java.util.function.BinaryOperator;
+
+/**
+ * GraphBuilder collects the edges of an undirected graph in bulk and then builds a read-only
+ * CSRGraph from them in one go, instead of inserting them one at a time into a map-based graph
+ * and freezing that.
+ *
+ * The edges are only appended to flat arrays while adding. build() then
+ * 1) counts each vertex's edges and lays out one slice of an array per vertex, presized;
+ * 2) sorts each slice by neighbor, so that repeated (parallel) edges between the same two
+ *    vertices are adjacent, and merges each such run into one edge, combining the labels
+ *    with the merge function in the order the edges were added.
+ * Both directions of an edge share one merged label.
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class GraphBuilder<V,E> {
+    private final Map<V, Integer> ids;          // vertex -> id, in order of first appearance
+    private final List<V> vertices;             // id -> vertex
+    private final BinaryOperator<E> merge;      // combines the labels of parallel edges
+    private int[] from, to;                     // edge i joins from[i] and to[i]
+    private Object[] labels;                    // edge i's label
+    private int edgeCount;
+
+    /**
+     * Creates an empty builder, with room for the expected numbers of vertices and edges
+     * (it grows past them if needed).
+     *
+     * @param expectedVertices  roughly how many vertices will be added
+     * @param expectedEdges     roughly how many edges (counting parallel ones) will be added
+     * @param merge             combines the labels of two edges between the same vertices;
+     *                          must not modify its arguments, which may be shared
+     */
+    public GraphBuilder(int expectedVertices, int expectedEdges, BinaryOperator<E> merge) {
+        ids = new HashMap<>(expectedVertices * 4 / 3 + 1);
+        vertices = new ArrayList<>(expectedVertices);
+        this.merge = merge;
+        from = new int[Math.max(expectedEdges, 16)];
+        to = new int[from.length];
+        labels = new Object[from.length];
+    }
+
+    /**
+     * Adds the vertex (if it's new) and returns its id.
+     */
+    public int addVertex(V v) {
+        Integer id = ids.get(v);
+        if (id == null) {
+            id = vertices.size();
+            ids.put(v, id);
+            vertices.add(v);
+        }
+        return id;
+    }
+
+    /**
+     * Adds an undirected edge between u and v (and the vertices, if they're new).
+     * If there already is an edge between them, the labels are merged when building.
+     */
+    public void addUndirected(V u, V v, E label) {
+        ensureCapacity(edgeCount + 1);
+        from[edgeCount] = addVertex(u);
+        to[edgeCount] = addVertex(v);
+        labels[edgeCount] = label;
+        edgeCount++;
+    }
+
+    /**
+     * Adds undirected edges us[i]--vs[i], labeled edgeLabels[i], for every i.
+     */
+    public void addUndirected(V[] us, V[] vs, E[] edgeLabels) {
+        if (us.length != vs.length || us.length != edgeLabels.length) {
+            throw new IllegalArgumentException("Edge arrays have different lengths");
+        }
+        ensureCapacity(edgeCount + us.length);
+        for (int i = 0; i < us.length; i++) {
+            addUndirected(us[i], vs[i], edgeLabels[i]);
+        }
+    }
+
+    /**
+     * Adds an undirected edge, with the same label, between every two of the given vertices
+     * (e.g., all the actors in one movie). Fewer than two vertices add nothing.
+     */
+    public void addClique(Collection<? extends V> clique, E label) {
+        int k = clique.size();
+        if (k < 2) return;
+        int[] members = new int[k];
+        int i = 0;
+        for (V v : clique) {
+            members[i++] = addVertex(v);
+        }
+        ensureCapacity(edgeCount + k * (k - 1) / 2);
+        for (i = 0; i < k; i++) {
+            for (int j = i + 1; j < k; j++) {
+                from[edgeCount] = members[i];
+                to[edgeCount] = members[j];
+                labels[edgeCount] = label;
+                edgeCount++;
+            }
+        }
+    }
+
+    /** How many vertices have been added */
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    /** How many edges have been added, counting parallel edges separately */
+    public int numAddedEdges() {
+        return edgeCount;
+    }
+
+    /**
+     * Builds the graph from the edges added so far, with vertex ids in order of first appearance.
+     */
+    @SuppressWarnings("unchecked")
+    public CSRGraph<V,E> build() {
+        int n = vertices.size();
+
+        // 1) Bucket both directions of every edge by their first vertex, with a counting sort;
+        //    each entry is (other end << 32 | edge index)
+        int[] bucketStart = new int[n + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            bucketStart[from[i] + 1]++;
+            bucketStart[to[i] + 1]++;
+        }
+        for (int a = 0; a < n; a++) bucketStart[a + 1] += bucketStart[a];
+        long[] entries = new long[bucketStart[n]];
+        int[] fill = Arrays.copyOf(bucketStart, n);
+        for (int i = 0; i < edgeCount; i++) {
+            entries[fill[from[i]]++] = ((long) to[i] << 32) | i;
+            entries[fill[to[i]]++] = ((long) from[i] << 32) | i;
+        }
+
+        // 2) Sort each bucket by (other end, edge index), and count the distinct neighbors
+        int[] offsets = new int[n + 1];
+        for (int a = 0; a < n; a++) {
+            Arrays.sort(entries, bucketStart[a], bucketStart[a + 1]);
+            int degree = 0;
+            for (int i = bucketStart[a]; i < bucketStart[a + 1]; i++) {
+                if (i == bucketStart[a] || (entries[i] >>> 32) != (entries[i - 1] >>> 32)) degree++;
+            }
+            offsets[a + 1] = offsets[a] + degree;
+        }
+
+        // Merge each run of one neighbor into a single edge; the lower id's side merges the label
+        int[] neighbors = new int[offsets[n]];
+        Object[] merged = new Object[offsets[n]];
+        for (int a = 0; a < n; a++) {
+            int e = offsets[a] - 1;
+            for (int i = bucketStart[a]; i < bucketStart[a + 1]; i++) {
+                int b = (int) (entries[i] >>> 32);
+                E label = (E) labels[(int) entries[i]];
+                if (e < offsets[a] || neighbors[e] != b) {
+                    neighbors[++e] = b;
+                    if (a <= b) merged[e] = label;
+                } else if (a <= b && entries[i] != entries[i - 1]) {
+                    // (a self-loop lists its edge twice in the same bucket; merge it only once)
+                    merged[e] = merge.apply((E) merged[e], label);
+                }
+            }
+        }
+
+        // Share each merged label with the reverse edge
+        for (int a = 0; a < n; a++) {
+            for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+                int b = neighbors[e];
+                if (b < a) {
+                    merged[e] = merged[Arrays.binarySearch(neighbors, offsets[b], offsets[b + 1], a)];
+                }
+            }
+        }
+
+        return new CSRGraph<>((V[]) vertices.toArray(), offsets, neighbors, merged);
+    }
+
+    /**
+     * Grows the edge arrays, if needed, to hold at least 'capacity' edges.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > from.length) {
+            int grown = Math.max(capacity, from.length + (from.length >> 1));
+            from = Arrays.copyOf(from, grown);
+            to = Arrays.copyOf(to, grown);
+            labels = Arrays.copyOf(labels, grown);
+        }
+    }
+}
@@ -1,4 +1,10 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * GraphLib is a simple library of static methods that use BFS (Breadth-First Search)
@@ -8,10 +14,30 @@ import java.util.*;
  * 3) missingVertices(...) finds all vertices that aren't reached by the BFS.
  * 4) averageSeparation(...) computes the average distance from the source to all reachable vertices.
  *
+ * For IndexedGraphs there are also int-based versions of bfs and averageSeparation that
+ * work on dense vertex ids and write into a reusable BFSWorkspace instead of building a tree,
+ * and bidirectionalPath(...) answers a single point-to-point query without a full BFS.
+ *
  * @author Triumph Kia Teh, Dartmouth CS 10, Winter 2025
  */
 public class GraphLib {
 
+    // One BFS workspace per thread, so that repeated int-based BFS runs don't allocate
+    private static final ThreadLocal<BFSWorkspace> WORKSPACE = ThreadLocal.withInitial(BFSWorkspace::new);
+    // A second one per thread for the target side of a bidirectional BFS
+    private static final ThreadLocal<BFSWorkspace> TARGET_WORKSPACE = ThreadLocal.withInitial(BFSWorkspace::new);
+
+    // Direction-optimizing BFS: go bottom-up once the frontier has more than 1/ALPHA of the
+    // unreached vertices' edges, and back top-down once it has fewer than 1/BETA of the vertices
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    // Parallel BFS: graphs with fewer edges are searched sequentially (see setParallelMinEdges),
+    // as are levels whose frontier has fewer vertices; levels are split into chunks of this many vertices
+    private static volatile int parallelMinEdges = 1 << 18;
+    private static final int PARALLEL_MIN_FRONTIER = 4096;
+    private static final int PARALLEL_CHUNK = 1024;
+
     /**
      * Performs a BFS (Breadth-First Search) starting from 'source' in the graph 'g'.
      * Returns a new Graph which is the BFS tree with edges directed child->parent.
@@ -32,42 +58,47 @@ public class GraphLib {
             return tree;
         }
 
-        // Keep track of each node's parent and distance (for reference if needed)
-        Map<V, V> parent = new HashMap<>();
-        Map<V, Integer> distance = new HashMap<>();
+        // Keep track of each node's distance, which also marks it as visited (its parent is
+        // recorded in the tree); an open-addressing map, so no boxing or entry objects
+        Object2IntMap<V> distance = new Object2IntMap<>(g.numVertices(), -1);
 
         // The source has no parent, and its distance is 0
-        parent.put(source, null);
         distance.put(source, 0);
         tree.insertVertex(source);
 
-        // Use a queue for BFS
-        Queue<V> queue = new LinkedList<>();
+        // Use a queue for BFS: every vertex is queued once, so a list read from the front
+        // (unlike ArrayDeque, it allows a null vertex, as the maps do)
+        List<V> queue = new ArrayList<>();
         queue.add(source);
 
-        // Standard BFS loop
-        while (!queue.isEmpty()) {
-            V current = queue.remove();
-            int currentDepth = distance.get(current);
+        // Explores the out-neighbors of 'current' in the original graph, along with the labels
+        // on the edges to them (movies, etc.), without a second lookup per edge; one visitor
+        // serves every vertex, rather than a new capturing lambda per vertex
+        class Visitor implements BiConsumer<V, E> {
+            V current;
+            int childDepth;
 
-            // Explore all out-neighbors of 'current' in the original graph
-            for (V neighbor : g.outNeighbors(current)) {
+            public void accept(V neighbor, E label) {
                 // If 'neighbor' was never seen before, visit and record
-                if (!parent.containsKey(neighbor)) {
-                    parent.put(neighbor, current);
-                    distance.put(neighbor, currentDepth + 1);
-
+                if (distance.putIfAbsent(neighbor, childDepth)) {
                     // Insert this neighbor as a vertex in the BFS tree
                     tree.insertVertex(neighbor);
 
                     // Create an edge from neighbor->current (child->parent) in the BFS tree
-                    // Copy the label (movies, etc.) from the original graph
-                    tree.insertDirected(neighbor, current, g.getLabel(current, neighbor));
+                    tree.insertDirected(neighbor, current, label);
 
                     queue.add(neighbor);
                 }
             }
         }
+        Visitor visitor = new Visitor();
+
+        // Standard BFS loop
+        for (int head = 0; head < queue.size(); head++) {
+            visitor.current = queue.get(head);
+            visitor.childDepth = distance.get(visitor.current) + 1;
+            g.forEachOutEdge(visitor.current, visitor);
+        }
         return tree;
     }
 
@@ -145,38 +176,641 @@ public class GraphLib {
      *               Returns 0.0 if there are no other vertices in the BFS tree.
      */
     public static <V,E> double averageSeparation(Graph<V,E> tree, V root) {
-        Map<V, Integer> distance = new HashMap<>();
-        Queue<V> queue = new LinkedList<>();
+        // The vertices visited so far, and the queue (a list read from the front, as in bfs),
+        // with each queued vertex's distance kept alongside it in an int queue rather than in a map
+        ObjectSet<V> visited = new ObjectSet<>(tree.numVertices());
+        List<V> queue = new ArrayList<>();
+        IntArrayDeque depths = new IntArrayDeque();
 
         // The root starts at distance 0
-        distance.put(root, 0);
+        visited.add(root);
         queue.add(root);
+        depths.addLast(0);
 
-        int totalDistance = 0;
-        int count = 0;
-
-        // BFS in the BFS tree, but we traverse from parent->child by using inNeighbors
-        while (!queue.isEmpty()) {
-            V current = queue.poll();
-            int currentDepth = distance.get(current);
+        // Visits the children of one vertex, keeping the running totals; one visitor serves
+        // every vertex, rather than a new capturing lambda per vertex
+        class Visitor implements Consumer<V> {
+            int childDepth;
+            long totalDistance;
+            int count;
 
-            // Because the BFS tree edges are child->parent,
-            // the children of 'current' are inNeighbors(current).
-            for (V child : tree.inNeighbors(current)) {
-                if (!distance.containsKey(child)) {
-                    distance.put(child, currentDepth + 1);
-                    totalDistance += (currentDepth + 1);
+            public void accept(V child) {
+                if (visited.add(child)) {
+                    totalDistance += childDepth;
                     count++;
                     queue.add(child);
+                    depths.addLast(childDepth);
                 }
             }
         }
+        Visitor visitor = new Visitor();
+
+        // BFS in the BFS tree, but we traverse from parent->child by using inNeighbors
+        for (int head = 0; head < queue.size(); head++) {
+            V current = queue.get(head);
+            visitor.childDepth = depths.removeFirst() + 1;
+
+            // Because the BFS tree edges are child->parent,
+            // the children of 'current' are inNeighbors(current).
+            tree.forEachInNeighbor(current, visitor);
+        }
 
         // If 'count' is 0, it means no other vertices were reachable or exist in the tree
-        if (count == 0) {
+        if (visitor.count == 0) {
             return 0.0;
         } else {
-            return (double) totalDistance / count;
+            return (double) visitor.totalDistance / visitor.count;
+        }
+    }
+
+    /**
+     * The calling thread's reusable BFS workspace.
+     * Its contents are overwritten by the next int-based bfs(...) run on this thread.
+     */
+    public static BFSWorkspace workspace() {
+        return WORKSPACE.get();
+    }
+
+    /**
+     * Performs a BFS from the vertex with id 'source' using the calling thread's workspace.
+     *
+     * @see #bfs(IndexedGraph, int, BFSWorkspace)
+     */
+    public static <V, E> BFSWorkspace bfs(IndexedGraph<V, E> g, int source) {
+        return bfs(g, source, workspace());
+    }
+
+    /**
+     * Performs a BFS from the vertex with id 'source' in 'g', recording the depth and parent of
+     * every reached vertex in 'ws' instead of building a tree graph. Apart from one small
+     * neighbor visitor, no memory is allocated unless the workspace has to grow to fit the graph.
+     * If 'source' isn't a vertex id of 'g', nothing is reached.
+     *
+     * The BFS is direction-optimizing. A level is normally expanded top-down: each frontier
+     * vertex scans its edges for unreached neighbors. In a small-world graph like the co-star
+     * graph, though, one or two middle levels hold most of the vertices, and top-down then
+     * mostly finds neighbors that are already reached. So once the frontier's edges outnumber
+     * (by a factor of ALPHA) those of the unreached vertices, levels are expanded bottom-up
+     * instead: each unreached vertex scans its edges for any neighbor in the frontier (a bitset),
+     * and stops at the first one. When the frontier shrinks below 1/BETA of the vertices,
+     * it switches back to top-down. Bottom-up levels go through a list of the vertices that are
+     * still unreached, which drops the ones each level reaches, rather than through all vertices.
+     * Depths are the same either way; a vertex's parent may be a different one of the same depth.
+     *
+     * @param g       the graph on which BFS is performed
+     * @param source  the id of the starting vertex
+     * @param ws      the workspace to fill in (its previous contents are discarded)
+     * @return        ws, for convenience
+     */
+    public static <V, E> BFSWorkspace bfs(IndexedGraph<V, E> g, int source, BFSWorkspace ws) {
+        int n = g.numVertices();
+        ws.reset(n, source);
+        if (source < 0 || source >= n) {
+            return ws;
+        }
+
+        int[] dist = ws.dist, parent = ws.parent, queue = ws.queue;
+        dist[source] = 0;
+        parent[source] = -1;
+        queue[0] = source;
+        ws.visit(source);
+
+        // The current level is queue[levelStart..levelEnd); the next one is appended after it
+        int levelStart = 0, levelEnd = 1, depth = 0;
+        long frontierEdges = g.edgeEnd(source) - g.edgeStart(source);
+        long unreachedEdges = g.numEdges() - frontierEdges;
+        boolean bottomUp = false;
+        TopDownVisitor visitor = new TopDownVisitor(ws);
+
+        while (levelStart < levelEnd) {
+            ws.endLevel(levelEnd);
+            int frontierSize = levelEnd - levelStart;
+            bottomUp = chooseBottomUp(bottomUp, frontierEdges, unreachedEdges, frontierSize, n);
+
+            int tail = bottomUp
+                    ? bottomUpLevel(g, ws, levelStart, levelEnd, depth)
+                    : topDownLevel(g, visitor, ws.queue, levelStart, levelEnd, depth);
+
+            // The new frontier's edges no longer count as unreached
+            frontierEdges = 0;
+            for (int i = levelEnd; i < tail; i++) {
+                frontierEdges += g.edgeEnd(queue[i]) - g.edgeStart(queue[i]);
+            }
+            unreachedEdges -= frontierEdges;
+            levelStart = levelEnd;
+            levelEnd = tail;
+            depth++;
+        }
+        ws.size = levelEnd;
+        return ws;
+    }
+
+    /**
+     * Whether a direction-optimizing BFS should expand its next level bottom-up: it switches to
+     * bottom-up once the frontier's edges outnumber, by a factor of ALPHA, the edges of the
+     * unreached vertices, and back to top-down once the frontier has fewer than 1/BETA of
+     * the n vertices; otherwise it keeps going in the current direction.
+     *
+     * @param bottomUp        whether the previous level was expanded bottom-up
+     * @param frontierEdges   how many edges the frontier's vertices have
+     * @param unreachedEdges  how many edges the vertices not reached yet have
+     * @param frontierSize    how many vertices the frontier has
+     */
+    private static boolean chooseBottomUp(boolean bottomUp, long frontierEdges, long unreachedEdges,
+                                          int frontierSize, int n) {
+        if (!bottomUp) {
+            return frontierEdges * ALPHA > unreachedEdges;
+        }
+        return (long) frontierSize * BETA >= n;
+    }
+
+    /**
+     * Expands the level queue[levelStart..levelEnd) (at the given depth) top-down, appending
+     * the next level to the queue. The graph hands each frontier vertex's neighbor ids to the
+     * visitor in its own loop (forEachOutNeighborId), so a CSR graph scans its arrays directly.
+     *
+     * @return  the new end of the queue
+     */
+    private static <V, E> int topDownLevel(IndexedGraph<V, E> g, TopDownVisitor visitor, int[] queue,
+                                           int levelStart, int levelEnd, int depth) {
+        visitor.childDepth = depth + 1;
+        visitor.tail = levelEnd;
+        for (int i = levelStart; i < levelEnd; i++) {
+            visitor.current = queue[i];
+            g.forEachOutNeighborId(visitor.current, visitor);
+        }
+        return visitor.tail;
+    }
+
+    /**
+     * Top-down BFS step for one frontier vertex's neighbors: each unreached neighbor gets its
+     * depth and parent and is queued. One is made per BFS and reused for every frontier vertex.
+     */
+    private static final class TopDownVisitor implements IntConsumer {
+        final int[] dist, parent, queue;
+        final long[] visited;
+        int current;        // the frontier vertex whose neighbors are visited
+        int childDepth;     // the depth of the level being found
+        int tail;           // the end of the queue
+
+        TopDownVisitor(BFSWorkspace ws) {
+            dist = ws.dist;
+            parent = ws.parent;
+            queue = ws.queue;
+            visited = ws.visited;
+        }
+
+        public void accept(int neighbor) {
+            if (dist[neighbor] < 0) {
+                dist[neighbor] = childDepth;
+                parent[neighbor] = current;
+                queue[tail++] = neighbor;
+                visited[neighbor >>> 6] |= 1L << neighbor;
+            }
+        }
+    }
+
+    /**
+     * Expands the level queue[levelStart..levelEnd) (at the given depth) bottom-up: every
+     * unreached vertex with a neighbor in the level joins the next level, which is appended
+     * to the queue in id order. The workspace's unreached list is compacted to the vertices
+     * that are still unreached (it is built from dist at the first bottom-up level).
+     *
+     * @return  the new end of the queue
+     */
+    private static <V, E> int bottomUpLevel(IndexedGraph<V, E> g, BFSWorkspace ws, int levelStart, int levelEnd, int depth) {
+        int n = g.numVertices();
+        int[] dist = ws.dist, parent = ws.parent, queue = ws.queue;
+        long[] frontier = ws.frontierBits(n);
+        Arrays.fill(frontier, 0, (n + 63) >>> 6, 0L);
+        for (int i = levelStart; i < levelEnd; i++) {
+            frontier[queue[i] >>> 6] |= 1L << queue[i];
+        }
+
+        int[] unreached = ws.unreachedIds(n);
+        int tail = levelEnd, kept = 0;
+        for (int k = 0, count = ws.unreachedCount; k < count; k++) {
+            int v = unreached[k];
+            // (top-down levels since the list was built may have reached it)
+            if (dist[v] >= 0) continue;
+            boolean found = false;
+            for (int e = g.edgeStart(v), end = g.edgeEnd(v); e < end; e++) {
+                int neighbor = g.edgeTarget(e);
+                if ((frontier[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                    dist[v] = depth + 1;
+                    parent[v] = neighbor;
+                    queue[tail++] = v;
+                    ws.visit(v);
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) unreached[kept++] = v;
+        }
+        ws.unreachedCount = kept;
+        return tail;
+    }
+
+    /**
+     * Sets how many edges a graph needs for parallelBfs(...) to search it in parallel
+     * (2^18 by default); smaller graphs are searched with bfs(...). Below about that size a
+     * level's work is too small to be worth splitting into tasks, but where the break-even
+     * point lies depends on the machine, so it can be tuned (0 parallelizes every graph).
+     *
+     * @throws IllegalArgumentException if edges is negative
+     */
+    public static void setParallelMinEdges(int edges) {
+        if (edges < 0) {
+            throw new IllegalArgumentException("Negative edge count: " + edges);
+        }
+        parallelMinEdges = edges;
+    }
+
+    /**
+     * Like bfs(g, source, ws), but expands each level on all cores of the common ForkJoinPool.
+     * Levels are processed one at a time (level-synchronous), each choosing top-down or
+     * bottom-up as in bfs(...):
+     *   - top-down, the frontier is cut into chunks of PARALLEL_CHUNK vertices, and each chunk's
+     *     task claims the unreached neighbors it finds in an atomic bitset with compare-and-set,
+     *     so every vertex gets exactly one parent, and collects them in its own buffer
+     *   - bottom-up, all the vertices are cut into chunks, and each task only writes the
+     *     depths and parents of its own vertices
+     * The chunk buffers are then appended to the queue in chunk order. The stream's tasks are
+     * spread over the pool's threads by work stealing, so uneven chunks still balance out.
+     *
+     * Small graphs (fewer edges than set with setParallelMinEdges), a single-threaded pool,
+     * and levels with a small frontier are done sequentially, where splitting up the work
+     * would cost more than it saves.
+     * Depths are the same as with bfs(...); which same-depth parent a vertex gets may differ
+     * from run to run.
+     *
+     * @param g       the graph on which BFS is performed
+     * @param source  the id of the starting vertex
+     * @param ws      the workspace to fill in (its previous contents are discarded)
+     * @return        ws, for convenience
+     */
+    public static <V, E> BFSWorkspace parallelBfs(IndexedGraph<V, E> g, int source, BFSWorkspace ws) {
+        int n = g.numVertices();
+        if (g.numEdges() < parallelMinEdges || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return bfs(g, source, ws);
+        }
+        ws.reset(n, source);
+        if (source < 0 || source >= n) {
+            return ws;
+        }
+
+        int[] dist = ws.dist, parent = ws.parent, queue = ws.queue;
+        AtomicLongArray claimed = ws.claimedBits(n);
+        claim(claimed, source);
+        dist[source] = 0;
+        parent[source] = -1;
+        queue[0] = source;
+
+        int levelStart = 0, levelEnd = 1, depth = 0;
+        long frontierEdges = g.edgeEnd(source) - g.edgeStart(source);
+        long unreachedEdges = g.numEdges() - frontierEdges;
+        boolean bottomUp = false;
+
+        while (levelStart < levelEnd) {
+            ws.endLevel(levelEnd);
+            int frontierSize = levelEnd - levelStart;
+            bottomUp = chooseBottomUp(bottomUp, frontierEdges, unreachedEdges, frontierSize, n);
+
+            // Each chunk finds its part of the next level, in its own buffer
+            int[][] found;
+            if (bottomUp) {
+                long[] frontier = ws.frontierBits(n);
+                Arrays.fill(frontier, 0, (n + 63) >>> 6, 0L);
+                for (int i = levelStart; i < levelEnd; i++) {
+                    frontier[queue[i] >>> 6] |= 1L << queue[i];
+                }
+                int chunks = (n + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+                int d = depth;
+                found = new int[chunks][];
+                IntStream.range(0, chunks).parallel().forEach(c -> found[c] = bottomUpChunk(g, ws, claimed,
+                        c * PARALLEL_CHUNK, Math.min(n, (c + 1) * PARALLEL_CHUNK), d));
+            } else if (frontierSize < PARALLEL_MIN_FRONTIER) {
+                found = new int[][] { topDownChunk(g, ws, claimed, levelStart, levelEnd, depth) };
+            } else {
+                int chunks = (frontierSize + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+                int first = levelStart, last = levelEnd, d = depth;
+                found = new int[chunks][];
+                IntStream.range(0, chunks).parallel().forEach(c -> found[c] = topDownChunk(g, ws, claimed,
+                        first + c * PARALLEL_CHUNK, Math.min(last, first + (c + 1) * PARALLEL_CHUNK), d));
+            }
+
+            // Append the chunks' buffers (each ends with its count) to the queue
+            int tail = levelEnd;
+            frontierEdges = 0;
+            for (int[] buffer : found) {
+                int count = buffer[buffer.length - 1];
+                System.arraycopy(buffer, 0, queue, tail, count);
+                for (int i = tail; i < tail + count; i++) {
+                    frontierEdges += g.edgeEnd(queue[i]) - g.edgeStart(queue[i]);
+                }
+                tail += count;
+            }
+            unreachedEdges -= frontierEdges;
+            levelStart = levelEnd;
+            levelEnd = tail;
+            depth++;
+        }
+        // The claimed bits are exactly the reached vertices
+        for (int i = 0, words = (n + 63) >>> 6; i < words; i++) {
+            ws.visited[i] = claimed.get(i);
+        }
+        ws.size = levelEnd;
+        return ws;
+    }
+
+    /**
+     * Parallel BFS, top-down: expands the frontier vertices queue[start..end) (at the given
+     * depth), claiming each unreached neighbor before recording it.
+     *
+     * @return  the claimed vertices, in a buffer whose last entry is their count
+     */
+    private static <V, E> int[] topDownChunk(IndexedGraph<V, E> g, BFSWorkspace ws, AtomicLongArray claimed,
+                                             int start, int end, int depth) {
+        int[] dist = ws.dist, parent = ws.parent, queue = ws.queue;
+        int[] buffer = new int[64];
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int current = queue[i];
+            for (int e = g.edgeStart(current), edgeEnd = g.edgeEnd(current); e < edgeEnd; e++) {
+                int neighbor = g.edgeTarget(e);
+                if (claim(claimed, neighbor)) {
+                    dist[neighbor] = depth + 1;
+                    parent[neighbor] = current;
+                    if (count == buffer.length - 1) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    buffer[count++] = neighbor;
+                }
+            }
+        }
+        buffer[buffer.length - 1] = count;
+        return buffer;
+    }
+
+    /**
+     * Parallel BFS, bottom-up: every unreached vertex among ids start..end-1 with a neighbor
+     * in the frontier bitset joins the next level (depth+1).
+     *
+     * @return  the vertices found, in a buffer whose last entry is their count
+     */
+    private static <V, E> int[] bottomUpChunk(IndexedGraph<V, E> g, BFSWorkspace ws, AtomicLongArray claimed,
+                                              int start, int end, int depth) {
+        int[] dist = ws.dist, parent = ws.parent;
+        long[] frontier = ws.frontier;
+        int[] buffer = new int[64];
+        int count = 0;
+        for (int v = start; v < end; v++) {
+            if (dist[v] >= 0) continue;
+            for (int e = g.edgeStart(v), edgeEnd = g.edgeEnd(v); e < edgeEnd; e++) {
+                int neighbor = g.edgeTarget(e);
+                if ((frontier[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                    // Only this chunk handles v, but other chunks share its word of the bitset
+                    claim(claimed, v);
+                    dist[v] = depth + 1;
+                    parent[v] = neighbor;
+                    if (count == buffer.length - 1) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    buffer[count++] = v;
+                    break;
+                }
+            }
+        }
+        buffer[buffer.length - 1] = count;
+        return buffer;
+    }
+
+    /**
+     * Atomically sets the vertex's bit in the bitset.
+     *
+     * @return  whether this call set it (false if it was already set)
+     */
+    private static boolean claim(AtomicLongArray bits, int v) {
+        int word = v >>> 6;
+        long mask = 1L << v;
+        long old = bits.get(word);
+        while ((old & mask) == 0) {
+            if (bits.compareAndSet(word, old, old | mask)) {
+                return true;
+            }
+            old = bits.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Computes the average distance from the BFS source to all other reached vertices,
+     * from the total depth that the BFS tallied in 'ws' level by level.
+     *
+     * @param ws  the workspace filled in by bfs(...)
+     * @return    the average separation, or 0.0 if no other vertices were reached
+     */
+    public static double averageSeparation(BFSWorkspace ws) {
+        return averageSeparation(ws.totalDistance, ws.size);
+    }
+
+    /**
+     * Computes the average separation from the sum of the depths of the vertices a BFS reached.
+     *
+     * @param totalDistance  the sum of the depths of all reached vertices
+     * @param reached        how many vertices were reached, including the source
+     * @return               the average separation, or 0.0 if no other vertices were reached
+     */
+    public static double averageSeparation(long totalDistance, int reached) {
+        return reached > 1 ? (double) totalDistance / (reached - 1) : 0.0;
+    }
+
+    /**
+     * Computes the average separation of every vertex of 'g', i.e., for each vertex id s,
+     * the average distance from s to all other vertices reachable from it.
+     * The sources are processed 64 at a time by multiSourceBFS(...); in parallel mode the
+     * batches are spread over the common ForkJoinPool, each worker using its own workspace.
+     *
+     * @param g         the graph
+     * @param parallel  whether to run the batches on multiple threads
+     * @return          an array whose entry s is the average separation of vertex id s
+     */
+    public static <V, E> double[] averageSeparations(IndexedGraph<V, E> g, boolean parallel) {
+        int n = g.numVertices();
+        int[] reached = new int[n];
+        long[] totalDistance = new long[n];
+
+        IntStream batches = IntStream.range(0, (n + 63) / 64);
+        if (parallel) {
+            batches = batches.parallel();
+        }
+        batches.forEach(b -> {
+            int first = b * 64;
+            multiSourceBFS(g, first, Math.min(64, n - first), reached, totalDistance, workspace());
+        });
+
+        double[] result = new double[n];
+        for (int s = 0; s < n; s++) {
+            result[s] = reached[s] > 0 ? (double) totalDistance[s] / reached[s] : 0.0;
+        }
+        return result;
+    }
+
+    /**
+     * Multi-source BFS (MS-BFS): runs BFS from up to 64 sources, the vertex ids
+     * first .. first+count-1, in one sweep over the graph per level. Each vertex carries a long
+     * bitmask with bit i standing for source first+i, so one edge scan advances all sources
+     * that have the vertex in their frontier at once. Only distance sums are kept, not parents.
+     *
+     * @param g              the graph
+     * @param first          the id of the first source
+     * @param count          how many consecutive sources (at most 64)
+     * @param reached        receives, at each source's id, how many other vertices it reaches
+     * @param totalDistance  receives, at each source's id, the sum of distances to them
+     * @param ws             the workspace whose bitmasks are used as scratch space
+     */
+    public static <V, E> void multiSourceBFS(IndexedGraph<V, E> g, int first, int count,
+                                             int[] reached, long[] totalDistance, BFSWorkspace ws) {
+        if (count < 1 || count > 64) {
+            throw new IllegalArgumentException("MS-BFS handles 1 to 64 sources, not " + count);
+        }
+        int n = g.numVertices();
+        ws.resetMultiSource(n);
+        long[] seen = ws.seen, visit = ws.visit, visitNext = ws.visitNext;
+
+        // Each source starts out seeing itself, at distance 0
+        for (int i = 0; i < count; i++) {
+            seen[first + i] = visit[first + i] = 1L << i;
+            reached[first + i] = 0;
+            totalDistance[first + i] = 0;
+        }
+
+        for (int depth = 1; ; depth++) {
+            // Expand every vertex that is in some source's frontier
+            boolean expanded = false;
+            for (int v = 0; v < n; v++) {
+                long frontier = visit[v];
+                if (frontier == 0) continue;
+                for (int e = g.edgeStart(v), end = g.edgeEnd(v); e < end; e++) {
+                    int w = g.edgeTarget(e);
+                    // The sources that reach w for the first time, through v
+                    long newlySeen = frontier & ~seen[w];
+                    if (newlySeen != 0) {
+                        visitNext[w] |= newlySeen;
+                        seen[w] |= newlySeen;
+                        expanded = true;
+                    }
+                }
+            }
+            if (!expanded) break;
+
+            // Credit each newly reached vertex to its sources, and advance the frontier
+            for (int v = 0; v < n; v++) {
+                long newlySeen = visitNext[v];
+                visit[v] = newlySeen;
+                visitNext[v] = 0;
+                while (newlySeen != 0) {
+                    int i = Long.numberOfTrailingZeros(newlySeen);
+                    reached[first + i]++;
+                    totalDistance[first + i] += depth;
+                    newlySeen &= newlySeen - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds a shortest path between two vertices with a bidirectional BFS: one search grows
+     * from 'from' and another from 'to', always expanding a whole level of whichever has the
+     * smaller frontier, until they meet. Only the neighborhoods of the two endpoints are
+     * explored, instead of everything within the full distance of 'from'.
+     *
+     * @param g     the graph (undirected, so the search from 'to' can follow out-edges)
+     * @param from  the first vertex of the path
+     * @param to    the last vertex of the path
+     * @return      the path with the label of each hop, empty if 'from' and 'to' aren't connected
+     *              (or aren't both in the graph)
+     */
+    public static <V, E> GraphPath<V, E> bidirectionalPath(IndexedGraph<V, E> g, V from, V to) {
+        int source = g.indexOf(from), target = g.indexOf(to);
+        if (source < 0 || target < 0) {
+            return new GraphPath<>(new ArrayList<>(), new ArrayList<>());
+        }
+
+        BFSWorkspace forward = workspace(), backward = TARGET_WORKSPACE.get();
+        startBFS(g, source, forward);
+        startBFS(g, target, backward);
+
+        // Each side's frontier is queue[head..size); the sides meet at vertex 'meet'
+        int forwardHead = 0, backwardHead = 0;
+        int meet = source == target ? source : -1;
+        while (meet < 0 && forwardHead < forward.size && backwardHead < backward.size) {
+            if (forward.size - forwardHead <= backward.size - backwardHead) {
+                int levelEnd = forward.size;
+                meet = expandLevel(g, forward, forwardHead, backward);
+                forwardHead = levelEnd;
+            } else {
+                int levelEnd = backward.size;
+                meet = expandLevel(g, backward, backwardHead, forward);
+                backwardHead = levelEnd;
+            }
+        }
+
+        List<V> vertices = new ArrayList<>();
+        List<E> labels = new ArrayList<>();
+        if (meet < 0) {
+            return new GraphPath<>(vertices, labels);
+        }
+
+        // Walk from the meeting vertex back to 'from', then reverse and walk on to 'to'
+        for (int current = meet; current >= 0; current = forward.parent[current]) {
+            vertices.add(g.vertexAt(current));
+        }
+        Collections.reverse(vertices);
+        for (int current = backward.parent[meet]; current >= 0; current = backward.parent[current]) {
+            vertices.add(g.vertexAt(current));
+        }
+        for (int i = 0; i + 1 < vertices.size(); i++) {
+            labels.add(g.getLabel(vertices.get(i), vertices.get(i + 1)));
+        }
+        return new GraphPath<>(vertices, labels);
+    }
+
+    /**
+     * Resets 'ws' and puts 'source' in it as the only vertex reached so far.
+     */
+    private static <V, E> void startBFS(IndexedGraph<V, E> g, int source, BFSWorkspace ws) {
+        ws.reset(g.numVertices(), source);
+        ws.dist[source] = 0;
+        ws.parent[source] = -1;
+        ws.queue[0] = source;
+        ws.size = 1;
+    }
+
+    /**
+     * Expands one whole BFS level of 'side' (its frontier being queue[head..size)).
+     * Stops as soon as a newly reached vertex has also been reached by 'other' and returns it;
+     * the first such vertex lies on a shortest path since 'other' has finished all its earlier levels.
+     *
+     * @return  the vertex where the two searches meet, or -1 if they didn't
+     */
+    private static <V, E> int expandLevel(IndexedGraph<V, E> g, BFSWorkspace side, int head, BFSWorkspace other) {
+        int[] dist = side.dist, parent = side.parent, queue = side.queue;
+        int levelEnd = side.size, tail = side.size;
+        try {
+            for (int i = head; i < levelEnd; i++) {
+                int current = queue[i];
+                for (int e = g.edgeStart(current), end = g.edgeEnd(current); e < end; e++) {
+                    int neighbor = g.edgeTarget(e);
+                    if (dist[neighbor] < 0) {
+                        dist[neighbor] = dist[current] + 1;
+                        parent[neighbor] = current;
+                        queue[tail++] = neighbor;
+                        if (other.dist[neighbor] >= 0) {
+                            return neighbor;
+                        }
+                    }
+                }
+            }
+            return -1;
+        } finally {
+            side.size = tail;
         }
     }
 }
@@ -0,0 +1,56 @@
+import java.util.List;
+
+/**
+ * GraphPath is a path through a graph: its vertices in order, plus the label of each hop,
+ * so that label(i) is the label on the edge between vertex(i) and vertex(i+1).
+ * An empty path (no vertices) means there was no path to be found.
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public class GraphPath<V, E> {
+    private final List<V> vertices;
+    private final List<E> labels;
+
+    /**
+     * Creates a path from its vertices and the labels between them
+     * (labels must have exactly one element fewer than vertices, unless both are empty).
+     */
+    public GraphPath(List<V> vertices, List<E> labels) {
+        if (labels.size() != Math.max(vertices.size() - 1, 0)) {
+            throw new IllegalArgumentException("A path with " + vertices.size()
+                    + " vertices needs " + (vertices.size() - 1) + " labels, not " + labels.size());
+        }
+        this.vertices = vertices;
+        this.labels = labels;
+    }
+
+    /** Whether there is no path at all */
+    public boolean isEmpty() {
+        return vertices.isEmpty();
+    }
+
+    /** Number of hops (edges) in the path */
+    public int length() {
+        return labels.size();
+    }
+
+    /** The i-th vertex of the path, starting from 0 */
+    public V vertex(int i) {
+        return vertices.get(i);
+    }
+
+    /** The label on the i-th hop, between vertex(i) and vertex(i+1) */
+    public E label(int i) {
+        return labels.get(i);
+    }
+
+    /** All vertices of the path, in order */
+    public List<V> vertices() {
+        return vertices;
+    }
+
+    public String toString() {
+        return vertices.toString();
+    }
+}
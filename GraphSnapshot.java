@@ -0,0 +1,311 @@
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * GraphSnapshot saves a built co-star graph to a compact binary file and opens it again by
+ * memory-mapping it, which is far faster than re-parsing the text files and re-pairing every cast.
+ * read(...) copies the graph onto the heap; map(...) uses the mapped file as the graph's storage.
+ *
+ * File layout (all ints big-endian, all strings UTF-8):
+ *   header      : MAGIC, VERSION, vertexCount, edgeCount, titleCount, labelCount,
+ *                 vertexNameBytes, titleBytes
+ *   offsets     : int[vertexCount+1]   CSR offsets, edges of vertex id are offsets[id] .. offsets[id+1]-1
+ *   neighbors   : int[edgeCount]       CSR targets
+ *   labelOffsets: int[edgeCount+1]     the movies of edge e are labelTitles[labelOffsets[e] .. labelOffsets[e+1]-1]
+ *   labelTitles : int[labelCount]      indexes into the title table
+ *   nameOffsets : int[vertexCount+1]   vertex id's name is nameBytes[nameOffsets[id] .. nameOffsets[id+1]-1]
+ *   titleOffsets: int[titleCount+1]    likewise for the title table
+ *   nameBytes   : byte[vertexNameBytes]
+ *   titleBytes  : byte[titleBytes]
+ */
+public class GraphSnapshot {
+    private static final int MAGIC = 0x4B424753;    // "KBGS"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 8;
+
+    /**
+     * Writes the graph to a snapshot file, replacing any existing file.
+     */
+    public static void write(IndexedGraph<String, Set<String>> g, String filename) throws IOException {
+        int n = g.numVertices();
+        int m = g.numEdges();
+
+        // Number the distinct movie titles, and list each edge's movies by number
+        Map<String, Integer> titleIds = new HashMap<>();
+        List<String> titles = new ArrayList<>();
+        int[] labelOffsets = new int[m + 1];
+        int[] labelTitles = new int[m];
+        int labelCount = 0;
+        for (int u = 0; u < n; u++) {
+            String a1 = g.vertexAt(u);
+            for (int e = g.edgeStart(u); e < g.edgeEnd(u); e++) {
+                Set<String> movies = g.getLabel(a1, g.vertexAt(g.edgeTarget(e)));
+                for (String title : movies) {
+                    Integer id = titleIds.get(title);
+                    if (id == null) {
+                        id = titles.size();
+                        titleIds.put(title, id);
+                        titles.add(title);
+                    }
+                    if (labelCount == labelTitles.length) {
+                        labelTitles = Arrays.copyOf(labelTitles, labelCount * 2 + 1);
+                    }
+                    labelTitles[labelCount++] = id;
+                }
+                labelOffsets[e + 1] = labelCount;
+            }
+        }
+
+        // Encode the vertex names and the titles
+        List<String> names = new ArrayList<>(n);
+        for (int u = 0; u < n; u++) {
+            names.add(g.vertexAt(u));
+        }
+        ByteArrayOutputStream nameBytes = new ByteArrayOutputStream();
+        int[] nameOffsets = encodeStrings(names, nameBytes);
+        ByteArrayOutputStream titleBytes = new ByteArrayOutputStream();
+        int[] titleOffsets = encodeStrings(titles, titleBytes);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(m);
+            out.writeInt(titles.size());
+            out.writeInt(labelCount);
+            out.writeInt(nameBytes.size());
+            out.writeInt(titleBytes.size());
+            for (int u = 0; u <= n; u++) {
+                out.writeInt(u < n ? g.edgeStart(u) : m);
+            }
+            for (int e = 0; e < m; e++) {
+                out.writeInt(g.edgeTarget(e));
+            }
+            writeInts(out, labelOffsets, m + 1);
+            writeInts(out, labelTitles, labelCount);
+            writeInts(out, nameOffsets, nameOffsets.length);
+            writeInts(out, titleOffsets, titleOffsets.length);
+            nameBytes.writeTo(out);
+            titleBytes.writeTo(out);
+        }
+    }
+
+    /**
+     * Opens a snapshot file by memory-mapping it and rebuilds the graph from it.
+     * Edge labels stay numbers into the title table until they are asked for.
+     *
+     * @throws IOException if the file can't be read or isn't a valid snapshot
+     */
+    public static MovieCSRGraph read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buf, filename);
+            int n = buf.getInt(), m = buf.getInt(), titleCount = buf.getInt(), labelCount = buf.getInt();
+            int nameByteCount = buf.getInt(), titleByteCount = buf.getInt();
+
+            // Bulk-copy the int sections out of the mapping
+            IntBuffer ints = buf.asIntBuffer();
+            int[] offsets = readInts(ints, n + 1);
+            int[] neighbors = readInts(ints, m);
+            int[] labelOffsets = readInts(ints, m + 1);
+            int[] labelTitles = readInts(ints, labelCount);
+            int[] nameOffsets = readInts(ints, n + 1);
+            int[] titleOffsets = readInts(ints, titleCount + 1);
+
+            checkLists(IntBuffer.wrap(offsets), IntBuffer.wrap(neighbors), n, filename);
+            checkLists(IntBuffer.wrap(labelOffsets), IntBuffer.wrap(labelTitles), titleCount, filename);
+
+            buf.position(buf.position() + 4 * ints.position());
+            VertexIndex<String> names = actorIndex(readBytes(buf, nameByteCount), nameOffsets);
+            String[] titles = decodeStrings(readBytes(buf, titleByteCount), titleOffsets);
+
+            // Keep the labels as title numbers: one number per edge, or a sorted list when the
+            // actors share several movies (the encoding MovieCSRGraph expects)
+            int[] edgeMovies = new int[m];
+            int[] movieLists = new int[labelCount + m];
+            int list = 0;
+            for (int e = 0; e < m; e++) {
+                int count = labelOffsets[e + 1] - labelOffsets[e];
+                if (count == 1) {
+                    edgeMovies[e] = labelTitles[labelOffsets[e]];
+                } else if (count > 1) {
+                    edgeMovies[e] = -list - 1;
+                    movieLists[list] = count;
+                    System.arraycopy(labelTitles, labelOffsets[e], movieLists, list + 1, count);
+                    Arrays.sort(movieLists, list + 1, list + 1 + count);
+                    list += 1 + count;
+                } else {
+                    throw new IOException(filename + " has an edge without movies");
+                }
+            }
+            return new MovieCSRGraph(names, offsets, neighbors, edgeMovies, Arrays.copyOf(movieLists, list), titles);
+        } catch (RuntimeException e) {
+            // Out-of-range counts or offsets in a damaged file
+            throw new IOException(filename + " is not a valid graph snapshot", e);
+        }
+    }
+
+    /**
+     * Opens a snapshot file by memory-mapping it, and uses the mapping itself as the graph's
+     * adjacency and label storage, so none of the edges are copied onto the heap; only the
+     * names and titles are decoded. The mapping stays valid after this returns.
+     *
+     * @throws IOException if the file can't be read or isn't a valid snapshot
+     */
+    public static OffHeapCSRGraph map(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buf, filename);
+            int n = buf.getInt(), m = buf.getInt(), titleCount = buf.getInt(), labelCount = buf.getInt();
+            int nameByteCount = buf.getInt(), titleByteCount = buf.getInt();
+
+            // Views of the int sections, in file order; a slice is big-endian like the file
+            IntBuffer ints = buf.slice().asIntBuffer();
+            int position = 0;
+            IntBuffer offsets = ints.slice(position, n + 1);
+            position += n + 1;
+            IntBuffer neighbors = ints.slice(position, m);
+            position += m;
+            IntBuffer labelOffsets = ints.slice(position, m + 1);
+            position += m + 1;
+            IntBuffer labelTitles = ints.slice(position, labelCount);
+            position += labelCount;
+
+            // A damaged file must fail here, not with an out-of-range id in some later query
+            checkLists(offsets, neighbors, n, filename);
+            checkLists(labelOffsets, labelTitles, titleCount, filename);
+
+            ints.position(position);
+            int[] nameOffsets = readInts(ints, n + 1);
+            int[] titleOffsets = readInts(ints, titleCount + 1);
+            buf.position(buf.position() + 4 * ints.position());
+            VertexIndex<String> names = actorIndex(readBytes(buf, nameByteCount), nameOffsets);
+            String[] titles = decodeStrings(readBytes(buf, titleByteCount), titleOffsets);
+
+            return new OffHeapCSRGraph(names, offsets, neighbors, labelOffsets, labelTitles, titles);
+        } catch (RuntimeException e) {
+            // Out-of-range counts or offsets in a damaged file
+            throw new IOException(filename + " is not a valid graph snapshot", e);
+        }
+    }
+
+    /**
+     * Whether the snapshot file exists and is newer than every one of the source files.
+     */
+    public static boolean isUpToDate(String filename, String... sources) throws IOException {
+        Path snapshot = Paths.get(filename);
+        if (!Files.exists(snapshot)) return false;
+        for (String source : sources) {
+            if (Files.getLastModifiedTime(Paths.get(source)).compareTo(Files.getLastModifiedTime(snapshot)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the magic number and version at the start of 'buf'.
+     *
+     * @throws IOException if they aren't those of a snapshot this class can read
+     */
+    private static void checkHeader(MappedByteBuffer buf, String filename) throws IOException {
+        if (buf.remaining() < HEADER_INTS * 4 || buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+            throw new IOException(filename + " is not a graph snapshot");
+        }
+    }
+
+    /**
+     * Checks one of the snapshot's CSR-style sections: list i is values[offsets[i] .. offsets[i+1]-1],
+     * so the offsets must run from 0 up to the number of values without decreasing, and every
+     * value must be an id below 'bound'.
+     *
+     * @throws IOException if they don't
+     */
+    private static void checkLists(IntBuffer offsets, IntBuffer values, int bound, String filename) throws IOException {
+        int count = offsets.limit() - 1;
+        if (offsets.get(0) != 0 || offsets.get(count) != values.limit()) {
+            throw new IOException(filename + " is not a valid graph snapshot: offsets don't cover its lists");
+        }
+        for (int i = 0; i < count; i++) {
+            if (offsets.get(i) > offsets.get(i + 1)) {
+                throw new IOException(filename + " is not a valid graph snapshot: offset " + (i + 1) + " decreases");
+            }
+        }
+        for (int i = 0; i < values.limit(); i++) {
+            int id = values.get(i);
+            if (id < 0 || id >= bound) {
+                throw new IOException(filename + " is not a valid graph snapshot: id " + id + " is out of range");
+            }
+        }
+    }
+
+    /**
+     * Appends the UTF-8 bytes of the strings to 'bytes'.
+     *
+     * @return the offsets of the strings in 'bytes', plus the total length at the end
+     */
+    private static int[] encodeStrings(List<String> strings, ByteArrayOutputStream bytes) {
+        int[] offsets = new int[strings.size() + 1];
+        for (int i = 0; i < strings.size(); i++) {
+            byte[] encoded = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            bytes.write(encoded, 0, encoded.length);
+            offsets[i + 1] = bytes.size();
+        }
+        return offsets;
+    }
+
+    /**
+     * Copies the next 'count' bytes of 'buf'.
+     */
+    private static byte[] readBytes(MappedByteBuffer buf, int count) {
+        byte[] bytes = new byte[count];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * The vertex names, whose UTF-8 bytes are bytes[offsets[id] .. offsets[id+1]-1], with their
+     * ids. If the ids are in sorted order, as in a graph built by CoStarGraphBuilder, the names
+     * go into a compact NameDictionary; otherwise they are indexed by a HashMap.
+     */
+    private static VertexIndex<String> actorIndex(byte[] bytes, int[] offsets) {
+        String[] names = decodeStrings(bytes, offsets);
+        for (int id = 1; id < names.length; id++) {
+            if (Arrays.compareUnsigned(bytes, offsets[id - 1], offsets[id], bytes, offsets[id], offsets[id + 1]) >= 0) {
+                return VertexIndex.of(names);
+            }
+        }
+        return new NameDictionary(Arrays.asList(names));
+    }
+
+    /**
+     * Decodes the strings whose UTF-8 bytes are bytes[offsets[i] .. offsets[i+1]-1].
+     */
+    private static String[] decodeStrings(byte[] bytes, int[] offsets) {
+        String[] strings = new String[offsets.length - 1];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static int[] readInts(IntBuffer ints, int count) {
+        int[] values = new int[count];
+        ints.get(values);
+        return values;
+    }
+}
@@ -0,0 +1,34 @@
+import java.util.function.IntConsumer;
+
+/**
+ * A Graph whose vertices are also numbered densely 0..numVertices()-1, so that algorithms
+ * can work on int ids and plain arrays instead of hashing vertex objects.
+ * Edges out of a vertex occupy the contiguous edge-index range [edgeStart(id), edgeEnd(id)),
+ * and edgeTarget(e) gives the id of the vertex at the other end of edge e.
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ */
+public interface IndexedGraph<V,E> extends Graph<V,E> {
+	/** The id of the vertex, or -1 if it is not in the graph */
+	public int indexOf(V v);
+
+	/** The vertex with the given id */
+	public V vertexAt(int id);
+
+	/** Index of the first edge out of the vertex with the given id */
+	public int edgeStart(int id);
+
+	/** One past the index of the last edge out of the vertex with the given id */
+	public int edgeEnd(int id);
+
+	/** The id of the vertex that edge e points to */
+	public int edgeTarget(int e);
+
+	/** Calls the action on the id of each neighbor with an edge from the vertex with the given id */
+	public default void forEachOutNeighborId(int id, IntConsumer action) {
+		for (int e = edgeStart(id), end = edgeEnd(id); e < end; e++) {
+			action.accept(edgeTarget(e));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * IntArrayDeque is a first-in first-out queue of primitive ints in a circular array that
+ * doubles when full, like ArrayDeque<Integer> without boxing each int.
+ */
+public class IntArrayDeque {
+    private int[] elements;     // circular buffer; the queue is elements[head], ..., size of them
+    private int head;
+    private int size;
+
+    /**
+     * Creates an empty queue with room for 'expected' ints before it has to grow.
+     */
+    public IntArrayDeque(int expected) {
+        elements = new int[Math.max(expected, 8)];
+    }
+
+    public IntArrayDeque() {
+        this(16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Adds the int at the end of the queue */
+    public void addLast(int value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) % elements.length] = value;
+        size++;
+    }
+
+    /**
+     * Removes and returns the int at the front of the queue.
+     *
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int removeFirst() {
+        if (size == 0) throw new NoSuchElementException();
+        int value = elements[head];
+        head = (head + 1) % elements.length;
+        size--;
+        return value;
+    }
+
+    /** Removes all the ints, keeping the capacity */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Doubles the buffer, moving the queue to its start.
+     */
+    private void grow() {
+        int[] grown = new int[elements.length * 2];
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, size - firstPart);
+        elements = grown;
+        head = 0;
+    }
+
+    public String toString() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = elements[(head + i) % elements.length];
+        }
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.*;
+
+/**
+ * LabelPool hash-conses edge label sets: equal sets are stored once and shared by reference.
+ * In the co-star graph, every pair of actors from one movie has the same one-title label, so
+ * sharing turns the k(k-1)/2 label sets of a movie with k actors into a single set.
+ * BaconGame.buildGraph, which builds the heap-mode co-star graph, pools its labels here.
+ *
+ * The pooled sets are shared, so they are read-only; a label "grows" by asking the pool for the
+ * set with one more element (copy-on-write), which is itself pooled. The growth steps are
+ * remembered, so adding the same element to the same set again costs a couple of lookups.
+ */
+public class LabelPool<T> {
+    private final Map<Set<T>, Set<T>> pool = new HashMap<>();                   // set -> its canonical copy
+    private final Map<Set<T>, Map<T, Set<T>>> grown = new IdentityHashMap<>();  // canonical set -> element -> set plus element
+
+    /**
+     * The canonical set holding just the one element.
+     */
+    public Set<T> of(T element) {
+        return canonical(Collections.singleton(element));
+    }
+
+    /**
+     * The canonical set holding the elements of 'label' (a set from this pool) plus 'element'.
+     * The given set itself is not modified.
+     */
+    public Set<T> with(Set<T> label, T element) {
+        if (label.contains(element)) {
+            return label;
+        }
+        return grown.computeIfAbsent(label, l -> new HashMap<>()).computeIfAbsent(element, e -> {
+            Set<T> bigger = new HashSet<>(label);
+            bigger.add(e);
+            return canonical(bigger);
+        });
+    }
+
+    /**
+     * The canonical set holding the elements of both 'label' and 'other' ('label' must be from
+     * this pool). Neither set is modified.
+     */
+    public Set<T> union(Set<T> label, Set<T> other) {
+        for (T element : other) {
+            label = with(label, element);
+        }
+        return label;
+    }
+
+    /**
+     * The canonical copy of the set, adding a read-only copy of it to the pool if it's new.
+     */
+    public Set<T> canonical(Set<T> set) {
+        Set<T> shared = pool.get(set);
+        if (shared == null) {
+            shared = Collections.unmodifiableSet(new HashSet<>(set));
+            pool.put(shared, shared);
+        }
+        return shared;
+    }
+
+    /**
+     * How many distinct sets are in the pool.
+     */
+    public int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.*;
+
+/**
+ * MovieCSRGraph is a CSR co-star graph whose edge labels are stored as int movie ids rather
+ * than as a HashSet of titles per edge. Almost every pair of co-stars shares exactly one movie,
+ * so each edge holds a single int:
+ *   - edgeMovies[e] >= 0 : the id of the one movie the two actors share
+ *   - edgeMovies[e] < 0  : the actors share several movies, listed at i = -edgeMovies[e] - 1 in
+ *                          movieLists as a count followed by that many ids, in ascending order
+ *
+ * Titles are only looked up when a label is asked for: getLabel returns a small read-only set
+ * view over the ids, which resolves each id through the titles array when it is iterated.
+ * Since a label is a set of titles, movies that share a title (e.g., a remake listed under its
+ * original's title) are one entry in it: the constructor replaces every movie id in the labels
+ * with the first id that has the same title, and drops the repeats from the movie lists.
+ */
+public class MovieCSRGraph extends CSRGraph<String, Set<String>> {
+    private final int[] edgeMovies;     // edge -> movie id, or -(index of its movie list)-1
+    private final int[] movieLists;     // the movie lists: count, then the ids
+    private final String[] titles;      // movie id -> title
+
+    /**
+     * Wraps arrays that are already in CSR form, with int movie labels encoded as described above.
+     * The arrays are used as-is, not copied (if titles repeat, the ids in edgeMovies and
+     * movieLists are rewritten in place, as described above).
+     *
+     * @param actors      the actor names and their ids
+     * @param offsets     the edges of id are offsets[id] .. offsets[id+1]-1
+     * @param neighbors   edge -> target id, sorted within each vertex, with every edge's reverse present
+     * @param edgeMovies  edge -> movie id, or -(index of its movie list)-1
+     * @param movieLists  the lists of movie ids of edges with several movies
+     * @param titles      movie id -> title
+     */
+    public MovieCSRGraph(VertexIndex<String> actors, int[] offsets, int[] neighbors,
+                         int[] edgeMovies, int[] movieLists, String[] titles) {
+        super(actors, offsets, neighbors);
+        if (edgeMovies.length != neighbors.length) {
+            throw new IllegalArgumentException("CSR arrays have inconsistent lengths");
+        }
+        this.edgeMovies = edgeMovies;
+        this.movieLists = movieLists;
+        this.titles = titles;
+        mergeRepeatedTitles();
+    }
+
+    /**
+     * Makes each label list every title once: if several movie ids have the same title, maps
+     * each of them to the first one, then sorts every movie list and drops its repeats.
+     * (Rewriting a list twice changes nothing, so lists shared by several edges are fine.)
+     */
+    private void mergeRepeatedTitles() {
+        Map<String, Integer> firstId = new HashMap<>(titles.length * 4 / 3 + 1);
+        int[] canonical = new int[titles.length];
+        boolean repeats = false;
+        for (int movie = 0; movie < titles.length; movie++) {
+            Integer first = firstId.putIfAbsent(titles[movie], movie);
+            canonical[movie] = first == null ? movie : first;
+            repeats |= first != null;
+        }
+        if (!repeats) return;
+
+        for (int e = 0; e < edgeMovies.length; e++) {
+            int movie = edgeMovies[e];
+            if (movie >= 0) {
+                edgeMovies[e] = canonical[movie];
+                continue;
+            }
+            int list = -movie - 1, start = list + 1, end = start + movieLists[list];
+            for (int i = start; i < end; i++) {
+                movieLists[i] = canonical[movieLists[i]];
+            }
+            Arrays.sort(movieLists, start, end);
+            int distinct = 1;
+            for (int i = start + 1; i < end; i++) {
+                if (movieLists[i] != movieLists[start + distinct - 1]) movieLists[start + distinct++] = movieLists[i];
+            }
+            // (the slots after the shortened list are left unused)
+            movieLists[list] = distinct;
+        }
+    }
+
+    /**
+     * The ids of the movies on edge e, in ascending order.
+     */
+    public int[] movieIds(int e) {
+        int movie = edgeMovies[e];
+        if (movie >= 0) {
+            return new int[] { movie };
+        }
+        int list = -movie - 1;
+        return Arrays.copyOfRange(movieLists, list + 1, list + 1 + movieLists[list]);
+    }
+
+    /**
+     * The titles of the movies on edge e, as a read-only set view.
+     */
+    protected Set<String> edgeLabel(int source, int e) {
+        int[] movies = movieIds(e);
+        return new AbstractSet<String>() {
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    int next = 0;
+
+                    public boolean hasNext() {
+                        return next < movies.length;
+                    }
+
+                    public String next() {
+                        if (next >= movies.length) throw new NoSuchElementException();
+                        return titles[movies[next++]];
+                    }
+                };
+            }
+
+            public int size() {
+                return movies.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * NameDictionary is a compact, read-only set of names (actor names or movie titles) that
+ * numbers them densely 0..size()-1 in sorted order, and maps names to ids and back.
+ *
+ * The names are stored, UTF-8 encoded and sorted, in one byte array with front coding: they
+ * are cut into blocks of BLOCK_SIZE names, the first name of each block is stored in full, and
+ * every other name only as the length of the prefix it shares with the name before it plus the
+ * rest of its bytes. Sorted names share long prefixes ("Smith, ..."), so this takes far less
+ * space than a String and a HashMap entry per name.
+ *   - get(id) decodes from the start of id's block, at most BLOCK_SIZE names, straight into an
+ *     array the size of the name
+ *   - indexOf(name) binary searches the blocks' first names, then scans one block
+ *
+ * Names are ordered by their UTF-8 bytes (compared as unsigned), not by String.compareTo.
+ * As a VertexIndex, it can hold the vertices of a CSR graph of actors in place of an array of
+ * names and a HashMap.
+ */
+public class NameDictionary implements VertexIndex<String> {
+    private static final int BLOCK_SIZE = 16;   // names per front-coded block
+
+    private final int size;             // how many names
+    private final byte[] arena;         // the front-coded blocks
+    private final int[] blockOffsets;   // block b starts at arena[blockOffsets[b]]
+    private final int maxLength;        // the length in bytes of the longest name
+
+    /**
+     * Builds the dictionary of the given names; repeats are stored once.
+     *
+     * @throws NullPointerException if one of the names is null
+     */
+    public NameDictionary(Collection<String> names) {
+        byte[][] encoded = new byte[names.size()][];
+        int count = 0;
+        for (String name : names) {
+            encoded[count++] = Objects.requireNonNull(name, "null name").getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(encoded, Arrays::compareUnsigned);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Integer> blocks = new ArrayList<>();
+        byte[] previous = null;
+        int unique = 0, longest = 0;
+        for (byte[] name : encoded) {
+            if (previous != null && Arrays.equals(previous, name)) continue;
+            if (unique % BLOCK_SIZE == 0) {
+                // A block starts with its first name in full
+                blocks.add(out.size());
+                writeVarint(out, name.length);
+                out.write(name, 0, name.length);
+            } else {
+                int shared = Arrays.mismatch(previous, name);
+                writeVarint(out, shared);
+                writeVarint(out, name.length - shared);
+                out.write(name, shared, name.length - shared);
+            }
+            longest = Math.max(longest, name.length);
+            previous = name;
+            unique++;
+        }
+
+        size = unique;
+        arena = out.toByteArray();
+        blockOffsets = blocks.stream().mapToInt(Integer::intValue).toArray();
+        maxLength = longest;
+    }
+
+    /** How many distinct names there are */
+    public int size() {
+        return size;
+    }
+
+    /** How many bytes the front-coded names take */
+    public int sizeInBytes() {
+        return arena.length + 4 * blockOffsets.length;
+    }
+
+    /**
+     * The name with the given id.
+     *
+     * @throws IndexOutOfBoundsException if there is no such id
+     */
+    public String get(int id) {
+        Objects.checkIndex(id, size);
+        int block = blockOffsets[id / BLOCK_SIZE];
+        int steps = id % BLOCK_SIZE;
+
+        // First find the name's length: it is the last of the block's entries up to id
+        int[] pos = { block };
+        int length = readVarint(pos);
+        pos[0] += length;
+        for (int i = steps; i > 0; i--) {
+            length = readVarint(pos);
+            int rest = readVarint(pos);
+            pos[0] += rest;
+            length += rest;
+        }
+
+        // Then decode the entries again, keeping only the bytes that fall within that length
+        // (bytes of earlier names past it can't be part of this name)
+        byte[] name = new byte[length];
+        pos[0] = block;
+        int first = readVarint(pos);
+        System.arraycopy(arena, pos[0], name, 0, Math.min(first, length));
+        pos[0] += first;
+        for (int i = steps; i > 0; i--) {
+            int shared = readVarint(pos);
+            int rest = readVarint(pos);
+            if (shared < length) {
+                System.arraycopy(arena, pos[0], name, shared, Math.min(rest, length - shared));
+            }
+            pos[0] += rest;
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The id of the name, or -1 if it isn't in the dictionary.
+     */
+    public int indexOf(String name) {
+        if (size == 0) return -1;
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+
+        // The last block whose first name is <= key
+        int lo = 0, hi = blockOffsets.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            int[] pos = { blockOffsets[mid] };
+            int length = readVarint(pos);
+            if (Arrays.compareUnsigned(arena, pos[0], pos[0] + length, key, 0, key.length) <= 0) lo = mid;
+            else hi = mid - 1;
+        }
+
+        // Scan that block; the names are sorted, so stop once past the key
+        byte[] current = new byte[maxLength];
+        int[] pos = { blockOffsets[lo] };
+        int length = readVarint(pos);
+        System.arraycopy(arena, pos[0], current, 0, length);
+        pos[0] += length;
+        int id = lo * BLOCK_SIZE;
+        while (true) {
+            int cmp = Arrays.compareUnsigned(current, 0, length, key, 0, key.length);
+            if (cmp == 0) return id;
+            if (cmp > 0) return -1;
+            id++;
+            if (id == size || id % BLOCK_SIZE == 0) return -1;
+            length = readNext(pos, current);
+        }
+    }
+
+    /**
+     * Decodes the front-coded name at arena[pos[0]] over the previous name in 'name',
+     * advancing pos[0] past it.
+     *
+     * @return  the length of the decoded name
+     */
+    private int readNext(int[] pos, byte[] name) {
+        int shared = readVarint(pos);
+        int rest = readVarint(pos);
+        System.arraycopy(arena, pos[0], name, shared, rest);
+        pos[0] += rest;
+        return shared + rest;
+    }
+
+    /**
+     * Reads a varint (7 bits per byte, low bits first) at arena[pos[0]], advancing pos[0] past it.
+     */
+    private int readVarint(int[] pos) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = arena[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    public String toString() {
+        return "NameDictionary of " + size + " names in " + sizeInBytes() + " bytes";
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * Object2IntMap is a hash map from objects to primitive ints, for the per-vertex bookkeeping of
+ * the generic graph algorithms (e.g., the distance of each vertex reached by a BFS).
+ *
+ * Unlike HashMap<K, Integer>, it boxes nothing and allocates no entry objects: keys and values
+ * sit in two parallel arrays, and collisions are resolved by open addressing (linear probing),
+ * so a lookup usually touches one or two adjacent slots. Entries can't be removed, which the
+ * graph algorithms never need. A null key is allowed, as in HashMap (it is stored as NULL_KEY).
+ */
+public class Object2IntMap<K> {
+    // Stands in for the null key (or null element, in ObjectSet), since null marks a free slot
+    static final Object NULL_KEY = new Object();
+
+    private Object[] keys;              // slot -> key, or null if the slot is free
+    private int[] values;               // slot -> value
+    private int size;
+    private final int missing;          // returned by get(...) for keys that aren't in the map
+
+    /**
+     * Creates an empty map with room for 'expected' entries before it has to grow.
+     *
+     * @param missing  the value get(...) returns for keys that aren't in the map
+     */
+    public Object2IntMap(int expected, int missing) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;   // power of 2, at most half full
+        keys = new Object[capacity];
+        values = new int[capacity];
+        this.missing = missing;
+    }
+
+    /** Creates an empty map whose get(...) returns -1 for missing keys */
+    public Object2IntMap() {
+        this(16, -1);
+    }
+
+    /** How many keys are in the map */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(Object key) {
+        return keys[slot(key)] != null;
+    }
+
+    /**
+     * The value of the key, or the map's missing value if it isn't in the map.
+     */
+    public int get(Object key) {
+        int slot = slot(key);
+        return keys[slot] != null ? values[slot] : missing;
+    }
+
+    /**
+     * Maps the key to the value, replacing any old value.
+     *
+     * @return  the old value, or the map's missing value if the key is new
+     */
+    public int put(K key, int value) {
+        int slot = slot(key);
+        if (keys[slot] != null) {
+            int old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        keys[slot] = mask(key);
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return missing;
+    }
+
+    /**
+     * Maps the key to the value only if the key isn't in the map yet.
+     *
+     * @return  whether the key was added
+     */
+    public boolean putIfAbsent(K key, int value) {
+        int slot = slot(key);
+        if (keys[slot] != null) {
+            return false;
+        }
+        keys[slot] = mask(key);
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /** Removes all the entries, keeping the capacity */
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    /**
+     * The slot holding the key, or else the free slot where it would go.
+     */
+    private int slot(Object key) {
+        key = mask(key);
+        int mask = keys.length - 1;
+        int slot = mix(key.hashCode()) & mask;
+        Object k;
+        while ((k = keys[slot]) != null && !k.equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the table and reinserts every entry.
+     */
+    private void grow() {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new Object[oldKeys.length * 2];
+        values = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = mix(oldKeys[i].hashCode()) & mask;
+                while (keys[slot] != null) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * The key as stored in a slot: itself, or NULL_KEY for null.
+     */
+    static Object mask(Object key) {
+        return key != null ? key : NULL_KEY;
+    }
+
+    /**
+     * Spreads the bits of a hash code, so that keys with similar hash codes (like the Strings
+     * "Actor 1", "Actor 2", ...) don't land in one cluster of adjacent slots.
+     */
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                if (sb.length() > 1) sb.append(", ");
+                sb.append(keys[i] != NULL_KEY ? keys[i] : null).append('=').append(values[i]);
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * ObjectSet is a hash set of objects with open addressing (linear probing) in one flat array,
+ * the set counterpart of Object2IntMap: no entry object per element, and lookups scan adjacent
+ * slots. Elements can't be removed; a null element is allowed, as in HashSet.
+ */
+public class ObjectSet<E> extends AbstractSet<E> {
+    private Object[] slots;     // slot -> element, or null if the slot is free
+    private int size;
+
+    /**
+     * Creates an empty set with room for 'expected' elements before it has to grow.
+     */
+    public ObjectSet(int expected) {
+        slots = new Object[Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1];
+    }
+
+    public ObjectSet() {
+        this(16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(Object o) {
+        return slots[slot(o)] != null;
+    }
+
+    public boolean add(E e) {
+        int slot = slot(e);
+        if (slots[slot] != null) {
+            return false;
+        }
+        slots[slot] = Object2IntMap.mask(e);
+        if (++size * 2 > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, null);
+        size = 0;
+    }
+
+    /**
+     * Iterates over the elements in table order (which is no particular order).
+     */
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            int next = advance(0);
+
+            private int advance(int from) {
+                while (from < slots.length && slots[from] == null) from++;
+                return from;
+            }
+
+            public boolean hasNext() {
+                return next < slots.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= slots.length) throw new NoSuchElementException();
+                Object e = slots[next];
+                next = advance(next + 1);
+                return e != Object2IntMap.NULL_KEY ? (E) e : null;
+            }
+        };
+    }
+
+    /**
+     * The slot holding the element, or else the free slot where it would go.
+     */
+    private int slot(Object o) {
+        o = Object2IntMap.mask(o);
+        int mask = slots.length - 1;
+        int slot = Object2IntMap.mix(o.hashCode()) & mask;
+        Object s;
+        while ((s = slots[slot]) != null && !s.equals(o)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the table and reinserts every element.
+     */
+    private void grow() {
+        Object[] old = slots;
+        slots = new Object[old.length * 2];
+        int mask = slots.length - 1;
+        for (Object o : old) {
+            if (o != null) {
+                int slot = Object2IntMap.mix(o.hashCode()) & mask;
+                while (slots[slot] != null) slot = (slot + 1) & mask;
+                slots[slot] = o;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * OffHeapCSRGraph is a read-only CSR co-star graph whose int arrays live outside the Java heap,
+ * in IntBuffers over direct or memory-mapped memory. Usually they are views straight into a
+ * mapped snapshot file (see GraphSnapshot.map), so opening the graph copies none of its edges,
+ * the operating system pages them in as they are used, and the garbage collector never has to
+ * scan them however large the graph is. Only the actor names and titles are kept on the heap.
+ * Apart from where its arrays live, it works just like CSRGraph (see AbstractCSRGraph).
+ *
+ * Layout, as in the snapshot file:
+ *   - the edges of vertex id are offsets[id] .. offsets[id+1]-1, with targets neighbors[e],
+ *     sorted within each vertex
+ *   - the movies of edge e are titles[labelTitles[labelOffsets[e] .. labelOffsets[e+1]-1]]
+ */
+public class OffHeapCSRGraph extends AbstractCSRGraph<String, Set<String>> {
+    private final VertexIndex<String> vertices; // id <-> actor name
+    private final IntBuffer offsets;            // edges of id are offsets[id] .. offsets[id+1]-1
+    private final IntBuffer neighbors;          // edge -> target id, sorted within each vertex
+    private final IntBuffer labelOffsets;       // movies of edge e are labelTitles[labelOffsets[e] .. labelOffsets[e+1]-1]
+    private final IntBuffer labelTitles;        // indexes into titles
+    private final String[] titles;              // title table
+
+    /**
+     * Wraps buffers that are already in CSR form. The buffers are used as-is (only ever read
+     * by index, so they may be shared by several threads), not copied.
+     *
+     * @param vertices      the actor names and their ids
+     * @param offsets       the edges of id are offsets[id] .. offsets[id+1]-1
+     * @param neighbors     edge -> target id, sorted within each vertex, with every edge's reverse present
+     * @param labelOffsets  the movies of edge e are labelTitles[labelOffsets[e] .. labelOffsets[e+1]-1]
+     * @param labelTitles   indexes into titles
+     * @param titles        the title table
+     */
+    public OffHeapCSRGraph(VertexIndex<String> vertices, IntBuffer offsets, IntBuffer neighbors,
+                           IntBuffer labelOffsets, IntBuffer labelTitles, String[] titles) {
+        int n = vertices.size();
+        if (offsets.limit() != n + 1 || offsets.get(n) != neighbors.limit()
+                || labelOffsets.limit() != neighbors.limit() + 1
+                || labelOffsets.get(neighbors.limit()) != labelTitles.limit()) {
+            throw new IllegalArgumentException("CSR buffers have inconsistent lengths");
+        }
+        this.vertices = vertices;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.labelOffsets = labelOffsets;
+        this.labelTitles = labelTitles;
+        this.titles = titles;
+    }
+
+    public int numVertices() {
+        return vertices.size();
+    }
+
+    public int numEdges() {
+        return neighbors.limit();
+    }
+
+    public int indexOf(String v) {
+        return vertices.indexOf(v);
+    }
+
+    public String vertexAt(int id) {
+        return vertices.get(id);
+    }
+
+    public int edgeStart(int id) {
+        return offsets.get(id);
+    }
+
+    public int edgeEnd(int id) {
+        return offsets.get(id + 1);
+    }
+
+    public int edgeTarget(int e) {
+        return neighbors.get(e);
+    }
+
+    public void forEachOutNeighborId(int id, IntConsumer action) {
+        for (int e = offsets.get(id), end = offsets.get(id + 1); e < end; e++) {
+            action.accept(neighbors.get(e));
+        }
+    }
+
+    /**
+     * The titles of the movies on edge e, as a read-only set view over the label buffers.
+     */
+    protected Set<String> edgeLabel(int source, int e) {
+        int start = labelOffsets.get(e), end = labelOffsets.get(e + 1);
+        return new AbstractSet<String>() {
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    int next = start;
+
+                    public boolean hasNext() {
+                        return next < end;
+                    }
+
+                    public String next() {
+                        if (next >= end) throw new NoSuchElementException();
+                        return titles[labelTitles.get(next++)];
+                    }
+                };
+            }
+
+            public int size() {
+                return end - start;
+            }
+        };
+    }
+}
@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * PipeFileReader streams the pipe-delimited data files ("id|name" or "id|id" per line).
+ * Instead of reading each line into a String and splitting it with a regex, it reads the file
+ * in large chunks through a FileChannel, finds the '|' and line breaks byte by byte, and parses
+ * the ids straight to ints. Names go through an Interner, which looks the name's bytes up among
+ * the names already read, so a name that repeats (within a file, or across files read with the
+ * same Interner) becomes a String only once.
+ *
+ * As with String.split, '|'s at the end of a line are ignored ("a|b|" reads as "a|b"). Other
+ * lines that don't have exactly one '|', or whose id isn't a non-negative int, are skipped.
+ * Names are decoded with the default charset, as FileReader would.
+ */
+public class PipeFileReader {
+    private static final int BUFFER_SIZE = 1 << 20;     // bytes read from the file at a time
+
+    /** Receives each "id|name" line */
+    public interface IdNameConsumer {
+        void accept(int id, String name);
+    }
+
+    /** Receives each "id|id" line */
+    public interface IdPairConsumer {
+        void accept(int first, int second);
+    }
+
+    /** Receives each line as bytes buf[start..end) with the single '|' at buf[bar] */
+    private interface LineHandler {
+        void line(byte[] buf, int start, int bar, int end);
+    }
+
+    /**
+     * Interner turns names, given as ranges of bytes, into Strings, returning the same String
+     * for the same bytes every time. The table holds only the Strings and the hashes of their
+     * bytes: a name whose bytes are all ASCII is compared char by char with the candidates (in
+     * the ASCII-compatible charsets), and only other names are decoded before being looked up.
+     */
+    public static class Interner {
+        private final Charset charset = Charset.defaultCharset();
+        private final boolean asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+        private String[] names = new String[1024];  // open addressing, linear probing; null is empty
+        private int[] hashes = new int[1024];       // hash of the bytes of names[i]
+        private int size;
+
+        /** The String of the bytes buf[start..end), the same one as for every earlier equal range */
+        public String intern(byte[] buf, int start, int end) {
+            int hash = 1;
+            boolean ascii = asciiCompatible;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buf[i];
+                if (buf[i] < 0) ascii = false;
+            }
+            String decoded = ascii ? null : new String(buf, start, end - start, charset);
+            int mask = names.length - 1;
+            for (int i = Object2IntMap.mix(hash) & mask; ; i = (i + 1) & mask) {
+                String name = names[i];
+                if (name == null) {
+                    if (decoded == null) decoded = new String(buf, start, end - start, charset);
+                    names[i] = decoded;
+                    hashes[i] = hash;
+                    if (++size * 4 > names.length * 3) grow();
+                    return decoded;
+                }
+                if (hashes[i] == hash && (decoded != null ? name.equals(decoded) : sameChars(name, buf, start, end))) {
+                    return name;
+                }
+            }
+        }
+
+        /** Whether the String has exactly the (ASCII) bytes buf[start..end) as its chars */
+        private static boolean sameChars(String name, byte[] buf, int start, int end) {
+            if (name.length() != end - start) return false;
+            for (int i = start; i < end; i++) {
+                if (name.charAt(i - start) != buf[i]) return false;
+            }
+            return true;
+        }
+
+        private void grow() {
+            String[] oldNames = names;
+            int[] oldHashes = hashes;
+            names = new String[oldNames.length * 2];
+            hashes = new int[names.length];
+            int mask = names.length - 1;
+            for (int j = 0; j < oldNames.length; j++) {
+                if (oldNames[j] == null) continue;
+                int i = Object2IntMap.mix(oldHashes[j]) & mask;
+                while (names[i] != null) i = (i + 1) & mask;
+                names[i] = oldNames[j];
+                hashes[i] = oldHashes[j];
+            }
+        }
+    }
+
+    /**
+     * Reads a file of "id|name" lines, passing each id and name to the consumer.
+     */
+    public static void readIdNames(String filename, IdNameConsumer consumer) throws IOException {
+        readIdNames(filename, new Interner(), consumer);
+    }
+
+    /**
+     * Reads a file of "id|name" lines, passing each id and name to the consumer, with the
+     * names interned by 'names' (which can be shared by several files).
+     */
+    public static void readIdNames(String filename, Interner names, IdNameConsumer consumer) throws IOException {
+        scan(filename, (buf, start, bar, end) -> {
+            int id = parseId(buf, start, bar);
+            if (id >= 0) {
+                consumer.accept(id, names.intern(buf, bar + 1, end));
+            }
+        });
+    }
+
+    /**
+     * Reads a file of "id|id" lines, passing each pair of ids to the consumer.
+     */
+    public static void readIdPairs(String filename, IdPairConsumer consumer) throws IOException {
+        scan(filename, (buf, start, bar, end) -> {
+            int first = parseId(buf, start, bar);
+            int second = parseId(buf, bar + 1, end);
+            if (first >= 0 && second >= 0) {
+                consumer.accept(first, second);
+            }
+        });
+    }
+
+    /**
+     * Reads the file chunk by chunk and hands every line with exactly one '|' to the handler.
+     * A line cut off at the end of a chunk is moved to the front of the buffer and completed
+     * by the next read (the buffer only grows if a single line doesn't fit).
+     */
+    private static void scan(String filename, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            byte[] buf = new byte[BUFFER_SIZE];
+            int filled = 0;         // bytes in buf
+            int scanned = 0;        // bytes of buf already scanned
+            int bar = -1;           // position of the first '|' in the current line, -1 if none
+            int bars = 0;           // how many '|'s the current line has
+            boolean eof = false;
+
+            while (!eof) {
+                if (filled == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+                int n = channel.read(ByteBuffer.wrap(buf, filled, buf.length - filled));
+                if (n < 0) eof = true;
+                else filled += n;
+
+                int lineStart = 0;
+                for (int i = scanned; i < filled; i++) {
+                    byte b = buf[i];
+                    if (b == '|') {
+                        if (bars++ == 0) bar = i;
+                    } else if (b == '\n') {
+                        handleLine(handler, buf, lineStart, bar, bars, i);
+                        lineStart = i + 1;
+                        bar = -1;
+                        bars = 0;
+                    }
+                }
+                if (eof && lineStart < filled) {
+                    // The last line has no line break
+                    handleLine(handler, buf, lineStart, bar, bars, filled);
+                    lineStart = filled;
+                }
+
+                // Keep the unfinished line for the next chunk
+                System.arraycopy(buf, lineStart, buf, 0, filled - lineStart);
+                filled -= lineStart;
+                scanned = filled;
+                if (bar >= 0) bar -= lineStart;
+            }
+        }
+    }
+
+    /**
+     * Passes the line buf[start..end) to the handler, without any trailing '\r' or '|'s,
+     * if what's left has exactly one '|' (with something after it).
+     *
+     * @param bar   the position of the line's first '|', if it has any
+     * @param bars  how many '|'s the line has
+     */
+    private static void handleLine(LineHandler handler, byte[] buf, int start, int bar, int bars, int end) {
+        if (end > start && buf[end - 1] == '\r') end--;
+        // Like String.split, drop the empty fields at the end
+        while (end > start && buf[end - 1] == '|') {
+            end--;
+            bars--;
+        }
+        if (bars == 1) {
+            handler.line(buf, start, bar, end);
+        }
+    }
+
+    /**
+     * Parses the decimal digits in buf[start..end) as an int.
+     *
+     * @return the id, or -1 if the bytes are empty, not all digits, or too large for an int
+     */
+    private static int parseId(byte[] buf, int start, int end) {
+        if (start >= end) return -1;
+        int id = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9 || id > (Integer.MAX_VALUE - digit) / 10) return -1;
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Undirected implementation of the Graph interface, for graphs like the co-star graph where
+ * every edge goes both ways.
+ * Each edge is stored once per end in a single adjacency map: { v1 -> { v2 -> edge } }, so
+ * in-neighbors and out-neighbors come from the same map, and there is no separate "in" map
+ * to keep up to date as in AdjacencyMapGraph.
+ *
+ * As in the Graph interface, an undirected edge counts as a pair of directed edges, so
+ * numEdges() matches that of an AdjacencyMapGraph with the same undirected edges; it is kept
+ * in a counter rather than recomputed. Since there are no one-way edges, insertDirected and
+ * removeDirected act on the edge in both directions.
+ */
+public class UndirectedGraph<V,E> implements Graph<V,E> {
+	protected Map<V, Map<V, E>> adj;		// between v1 and v2: { v1 -> { v2 -> edge } }
+	protected int edges;					// directed edge count: 2 per edge, 1 per self-loop
+
+	/**
+	 * Default constructor, creating an empty graph
+	 */
+	public UndirectedGraph() {
+		adj = new HashMap<V, Map<V, E>>();
+	}
+
+	public int numVertices() {
+		return adj.size();
+	}
+
+	public int numEdges() {
+		return edges;
+	}
+
+	public Iterable<V> vertices() {
+		return adj.keySet();
+	}
+
+	public boolean hasVertex(V v) {
+		return adj.containsKey(v);
+	}
+
+	public int outDegree(V v) {
+		return adj.get(v).size();
+	}
+
+	public int inDegree(V v) {
+		return outDegree(v);
+	}
+
+	public Iterable<V> outNeighbors(V v) {
+		return adj.get(v).keySet();
+	}
+
+	public Iterable<V> inNeighbors(V v) {
+		return outNeighbors(v);
+	}
+
+	public boolean hasEdge(V u, V v) {
+		return adj.get(u).containsKey(v);
+	}
+
+	public E getLabel(V u, V v) {
+		return adj.get(u).get(v);
+	}
+
+	public void forEachOutNeighbor(V v, Consumer<? super V> action) {
+		adj.get(v).keySet().forEach(action);
+	}
+
+	public void forEachInNeighbor(V v, Consumer<? super V> action) {
+		forEachOutNeighbor(v, action);
+	}
+
+	public void forEachOutEdge(V v, BiConsumer<? super V, ? super E> action) {
+		adj.get(v).forEach(action);
+	}
+
+	public void insertVertex(V v) {
+		if (!adj.containsKey(v)) {
+			adj.put(v, new HashMap<V, E>());
+		}
+	}
+
+	/** Same as insertUndirected: there are no one-way edges in this graph */
+	public void insertDirected(V u, V v, E e) {
+		insertUndirected(u, v, e);
+	}
+
+	public void insertUndirected(V u, V v, E e) {
+		// A new edge adds a pair of directed edges (just one for a self-loop); a relabeled one
+		// adds none, even if its old label was null
+		if (!adj.get(u).containsKey(v)) {
+			edges += u.equals(v) ? 1 : 2;
+		}
+		adj.get(u).put(v, e);
+		adj.get(v).put(u, e);
+	}
+
+	public void removeVertex(V v) {
+		if (!adj.containsKey(v)) return;
+		// remove v from each neighbor's adjacency
+		for (V w : adj.get(v).keySet()) {
+			if (!w.equals(v)) {
+				adj.get(w).remove(v);
+				edges -= 2;
+			} else {
+				edges -= 1;
+			}
+		}
+		adj.remove(v);
+	}
+
+	/** Same as removeUndirected: there are no one-way edges in this graph */
+	public void removeDirected(V u, V v) {
+		removeUndirected(u, v);
+	}
+
+	public void removeUndirected(V u, V v) {
+		if (adj.get(u).containsKey(v)) {
+			adj.get(u).remove(v);
+			adj.get(v).remove(u);
+			edges -= u.equals(v) ? 1 : 2;
+		}
+	}
+
+	/**
+	 * Returns a string representation of the vertex and edge lists.
+	 */
+	public String toString() {
+		return "Vertices: " + adj.keySet().toString() + "\nOut edges: " + adj.toString();
+	}
+}
@@ -0,0 +1,45 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * VertexIndex numbers a fixed set of vertices densely 0..size()-1 and maps them to their ids
+ * and back. CSR graphs keep their vertices in one, apart from the edges, so the vertices can be
+ * stored in whatever form suits them (e.g., actor names in a compact NameDictionary).
+ *
+ * @param <V>	the type of vertices
+ */
+public interface VertexIndex<V> {
+    /** How many vertices there are */
+    public int size();
+
+    /** The vertex with the given id */
+    public V get(int id);
+
+    /** The id of the vertex, or -1 if it isn't one of them */
+    public int indexOf(V v);
+
+    /**
+     * The index of the vertices in the array, with their positions in it as ids (looked up
+     * through a HashMap). The array is used as-is, not copied.
+     */
+    public static <V> VertexIndex<V> of(V[] vertices) {
+        Map<V, Integer> ids = new HashMap<>(vertices.length * 4 / 3 + 1);
+        for (int id = 0; id < vertices.length; id++) {
+            ids.put(vertices[id], id);
+        }
+        return new VertexIndex<V>() {
+            public int size() {
+                return vertices.length;
+            }
+
+            public V get(int id) {
+                return vertices[id];
+            }
+
+            public int indexOf(V v) {
+                Integer id = ids.get(v);
+                return id == null ? -1 : id;
+            }
+        };
+    }
+}